@@ -40,6 +40,9 @@ public class MIConfig implements ConfigData {
     public boolean disableItemTagTooltips = false;
     public int steamDrillFuelUseFactor = 5;
     public int steamDrillWaterUseFactor = 5;
+    public double itemPipeExtractionRoundsPerSecond = 1.0 / 3;
+    public int tankSyncIntervalTicks = 5;
+    public int maxCrafterBatchSize = 16;
 
     private transient static boolean registered = false;
 
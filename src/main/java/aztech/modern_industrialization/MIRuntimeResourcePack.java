@@ -28,38 +28,60 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 import net.minecraft.resource.ResourcePack;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.resource.metadata.ResourceMetadataReader;
 import net.minecraft.util.Identifier;
 
+/**
+ * A resource pack whose resources are generated at runtime. The resources are
+ * kept sorted by path, so that listing the resources under a prefix only visits
+ * the matching entries. Resources can be added as suppliers that are only
+ * encoded the first time the resource is opened. The encoded bytes are then
+ * kept, and the supplier is released together with everything it captured.
+ */
 public class MIRuntimeResourcePack implements ResourcePack {
     private final String name;
     private static final Set<String> NAMESPACES = Sets.newHashSet("modern_industrialization");
-    private final Map<String, byte[]> resources = new HashMap<>();
+    // Textures are generated concurrently
+    private final NavigableMap<String, Resource> resources = new ConcurrentSkipListMap<>();
 
     public MIRuntimeResourcePack(String name) {
         this.name = name;
     }
 
     public void addAsset(String path, byte[] asset) {
-        if (resources.put("assets/" + path, asset) != null) {
+        addAsset(path, () -> asset);
+    }
+
+    public void addAsset(String path, Supplier<byte[]> asset) {
+        if (resources.putIfAbsent("assets/" + path, new Resource(asset)) != null) {
             throw new IllegalStateException("Asset already exists in the runtime resource pack: " + path);
         }
     }
 
-    public void addData(String path, byte[] asset) {
-        if (resources.put("data/" + path, asset) != null) {
+    public void addData(String path, byte[] data) {
+        addData(path, () -> data);
+    }
+
+    public void addData(String path, Supplier<byte[]> data) {
+        if (resources.putIfAbsent("data/" + path, new Resource(data)) != null) {
             throw new IllegalStateException("Data already exists in the runtime resource pack: " + path);
         }
     }
 
     @Override
     public InputStream openRoot(String fileName) throws IOException {
-        if (resources.containsKey(fileName)) {
-            return new ByteArrayInputStream(resources.get(fileName));
+        Resource resource = resources.get(fileName);
+        if (resource != null) {
+            byte[] bytes = resource.get(fileName);
+            if (bytes != null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            throw new IOException("Failed to generate " + fileName + " in the runtime resource pack");
         }
         throw new IOException("Runtime resource pack doesn't contain " + fileName);
     }
@@ -72,10 +94,16 @@ public class MIRuntimeResourcePack implements ResourcePack {
     @Override
     public Collection<Identifier> findResources(ResourceType type, String namespace, String prefix, int maxDepth, Predicate<String> pathFilter) {
         String start = type.getDirectory() + "/" + namespace + "/" + prefix;
-        return this.resources.keySet().stream().filter(s -> s.startsWith(start) && pathFilter.test(s)).map(string -> {
-            String[] parts = string.split("/", 3);
-            return new Identifier(parts[1], parts[2]);
-        }).collect(Collectors.toList());
+        List<Identifier> result = new ArrayList<>();
+        // All the keys that start with the prefix are between the prefix itself and the
+        // prefix followed by the largest char.
+        for (String path : resources.subMap(start, true, start + Character.MAX_VALUE, false).keySet()) {
+            if (pathFilter.test(path)) {
+                String[] parts = path.split("/", 3);
+                result.add(new Identifier(parts[1], parts[2]));
+            }
+        }
+        return result;
     }
 
     @Override
@@ -101,4 +129,28 @@ public class MIRuntimeResourcePack implements ResourcePack {
     @Override
     public void close() {
     }
+
+    private static class Resource {
+        private Supplier<byte[]> supplier;
+        private byte[] bytes;
+
+        private Resource(Supplier<byte[]> supplier) {
+            this.supplier = supplier;
+        }
+
+        /**
+         * Return the encoded resource, or null if it could not be generated.
+         */
+        private synchronized byte[] get(String path) {
+            if (supplier != null) {
+                try {
+                    bytes = supplier.get();
+                } catch (RuntimeException ex) {
+                    ModernIndustrialization.LOGGER.error("Failed to generate {} in the runtime resource pack", path, ex);
+                }
+                supplier = null;
+            }
+            return bytes;
+        }
+    }
 }
@@ -32,6 +32,7 @@ import aztech.modern_industrialization.blocks.forgehammer.ForgeHammerPacket;
 import aztech.modern_industrialization.blocks.forgehammer.ForgeHammerScreenHandler;
 import aztech.modern_industrialization.blocks.tank.CreativeTankSetup;
 import aztech.modern_industrialization.compat.RecipeCompat;
+import aztech.modern_industrialization.debug.ProfileCommand;
 import aztech.modern_industrialization.inventory.ConfigurableInventoryPacketHandlers;
 import aztech.modern_industrialization.inventory.ConfigurableInventoryPackets;
 import aztech.modern_industrialization.items.FluidFuelItemHelper;
@@ -70,6 +71,7 @@ import net.devtech.arrp.json.models.JTextures;
 import net.devtech.arrp.json.tags.JTag;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.client.itemgroup.FabricItemGroupBuilder;
+import net.fabricmc.fabric.api.command.v1.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
@@ -171,6 +173,7 @@ public class ModernIndustrialization implements ModInitializer {
         PlayerChangeWorldCallback.EVENT.register((player, oldWorld, newWorld) -> MIKeyMap.clear(player));
         PlayerLeaveCallback.EVENT.register(MIKeyMap::clear);
         GuidebookEvents.init();
+        CommandRegistrationCallback.EVENT.register((dispatcher, dedicated) -> ProfileCommand.register(dispatcher));
 
         LOGGER.info("Modern Industrialization setup done!");
     }
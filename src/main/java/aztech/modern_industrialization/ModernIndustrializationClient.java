@@ -36,9 +36,7 @@ import aztech.modern_industrialization.inventory.ConfigurableInventoryPackets;
 import aztech.modern_industrialization.items.armor.ClientKeyHandler;
 import aztech.modern_industrialization.items.armor.HudRenderer;
 import aztech.modern_industrialization.items.armor.JetpackParticleAdder;
-import aztech.modern_industrialization.machines.ClientMachinePackets;
 import aztech.modern_industrialization.machines.MachineOverlay;
-import aztech.modern_industrialization.machines.MachinePackets;
 import aztech.modern_industrialization.machines.MachineScreenHandlers;
 import aztech.modern_industrialization.machines.blockentities.multiblocks.ElectricBlastFurnaceBlockEntity;
 import aztech.modern_industrialization.machines.components.FuelBurningComponent;
@@ -51,6 +49,7 @@ import aztech.modern_industrialization.pipes.MIPipes;
 import aztech.modern_industrialization.pipes.MIPipesClient;
 import aztech.modern_industrialization.pipes.impl.PipeItem;
 import aztech.modern_industrialization.proxy.ClientProxy;
+import aztech.modern_industrialization.util.ChunkRemeshScheduler;
 import aztech.modern_industrialization.util.TextHelper;
 import java.util.Collections;
 import java.util.List;
@@ -93,6 +92,7 @@ public class ModernIndustrializationClient implements ClientModInitializer {
         (new MIPipesClient()).setupClient();
         ClientKeyHandler.setup();
         WorldRenderEvents.START.register(renderer -> JetpackParticleAdder.addJetpackParticles(MinecraftClient.getInstance()));
+        WorldRenderEvents.AFTER_SETUP.register(ChunkRemeshScheduler::onAfterSetup);
         ClientTickEvents.END_CLIENT_TICK.register(ClientKeyHandler::onEndTick);
         HudRenderCallback.EVENT.register(HudRenderer::onRenderHud);
         registerBuiltinResourcePack();
@@ -111,11 +111,7 @@ public class ModernIndustrializationClient implements ClientModInitializer {
     }
 
     private void setupPackets() {
-        ClientPlayNetworking.registerGlobalReceiver(ConfigurableInventoryPackets.UPDATE_ITEM_SLOT,
-                ConfigurableInventoryPacketHandlers.S2C.UPDATE_ITEM_SLOT);
-        ClientPlayNetworking.registerGlobalReceiver(ConfigurableInventoryPackets.UPDATE_FLUID_SLOT,
-                ConfigurableInventoryPacketHandlers.S2C.UPDATE_FLUID_SLOT);
-        ClientPlayNetworking.registerGlobalReceiver(MachinePackets.S2C.COMPONENT_SYNC, ClientMachinePackets.ON_COMPONENT_SYNC);
+        ClientPlayNetworking.registerGlobalReceiver(ConfigurableInventoryPackets.UPDATE_SLOTS, ConfigurableInventoryPacketHandlers.S2C.UPDATE_SLOTS);
     }
 
     private void registerBuiltinResourcePack() {
@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.api;
 
+import aztech.modern_industrialization.debug.TickProfiler;
 import aztech.modern_industrialization.util.Tickable;
 import net.minecraft.block.BlockEntityProvider;
 import net.minecraft.block.BlockState;
@@ -36,8 +37,13 @@ public interface TickableBlock extends BlockEntityProvider {
     @Override
     default @Nullable <T extends BlockEntity> BlockEntityTicker<T> getTicker(World world, BlockState state, BlockEntityType<T> type) {
         return (w, p, s, be) -> {
-            if (be instanceof Tickable) {
-                ((Tickable) be).tick();
+            if (be instanceof Tickable tickable) {
+                // Only the server ticks are profiled
+                if (TickProfiler.isEnabled() && !w.isClient()) {
+                    TickProfiler.tickBlockEntity(tickable, be);
+                } else {
+                    tickable.tick();
+                }
             }
         };
     }
@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.blocks.tank;
 
 import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.api.TickableBlock;
 import aztech.modern_industrialization.util.MobSpawning;
 import java.util.Arrays;
 import java.util.List;
@@ -46,7 +47,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 
-public class TankBlock extends Block implements BlockEntityProvider {
+public class TankBlock extends Block implements TickableBlock {
     public final BlockEntityProvider factory;
 
     public TankBlock(Settings settings, BlockEntityProvider factory) {
@@ -23,8 +23,10 @@
  */
 package aztech.modern_industrialization.blocks.tank;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.api.FastBlockEntity;
 import aztech.modern_industrialization.util.NbtHelper;
+import aztech.modern_industrialization.util.Tickable;
 import dev.technici4n.fasttransferlib.experimental.api.context.ContainerItemContext;
 import dev.technici4n.fasttransferlib.experimental.api.fluid.ItemFluidStorage;
 import java.util.Iterator;
@@ -45,12 +47,25 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
 
-public class TankBlockEntity extends FastBlockEntity implements Storage<FluidKey>, StorageView<FluidKey>, BlockEntityClientSerializable {
+public class TankBlockEntity extends FastBlockEntity
+        implements Storage<FluidKey>, StorageView<FluidKey>, BlockEntityClientSerializable, Tickable {
+    /**
+     * Number of fill levels that are considered different for the client sync.
+     * The {@link TankRenderer} draws the fluid surface at most a quarter pixel
+     * apart for two amounts in the same level.
+     */
+    private static final int DISPLAYED_LEVELS = 64;
+
     FluidKey fluid = FluidKey.empty();
     long amount;
     final long capacity;
     private int version = 0;
     private final TankParticipant participant = new TankParticipant();
+    // Server-side state of the client sync
+    private FluidKey syncedFluid = FluidKey.empty();
+    private int syncedLevel = 0;
+    private boolean syncPending = false;
+    private int syncCooldown = 0;
 
     public TankBlockEntity(BlockEntityType<?> bet, BlockPos pos, BlockState state, long capacity) {
         super(bet, pos, state);
@@ -84,8 +99,31 @@ public class TankBlockEntity extends FastBlockEntity implements Storage<FluidKey
     public void onChanged() {
         version++;
         markDirty();
-        if (!world.isClient)
+        if (!world.isClient && (!syncedFluid.equals(fluid) || syncedLevel != getDisplayedLevel())) {
+            syncPending = true;
+        }
+    }
+
+    private int getDisplayedLevel() {
+        return (int) (amount * DISPLAYED_LEVELS / capacity);
+    }
+
+    /**
+     * Send the pending sync, at most once every
+     * {@link MIConfig#tankSyncIntervalTicks} ticks. The packet is sent to the
+     * players watching the chunk, and it contains the exact amount.
+     */
+    @Override
+    public void tick() {
+        if (syncCooldown > 0) {
+            syncCooldown--;
+        } else if (syncPending) {
             sync();
+            syncedFluid = fluid;
+            syncedLevel = getDisplayedLevel();
+            syncPending = false;
+            syncCooldown = MIConfig.getConfig().tankSyncIntervalTicks - 1;
+        }
     }
 
     @Override
@@ -98,6 +136,9 @@ public class TankBlockEntity extends FastBlockEntity implements Storage<FluidKey
     public void readNbt(NbtCompound tag) {
         fromClientTag(tag);
         super.readNbt(tag);
+        // The client receives the whole tank when the chunk is sent
+        syncedFluid = fluid;
+        syncedLevel = getDisplayedLevel();
     }
 
     public boolean onPlayerUse(PlayerEntity player) {
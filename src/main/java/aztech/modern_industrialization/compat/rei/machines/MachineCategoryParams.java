@@ -26,6 +26,7 @@ package aztech.modern_industrialization.compat.rei.machines;
 import aztech.modern_industrialization.inventory.SlotPositions;
 import aztech.modern_industrialization.machines.components.sync.ProgressBar;
 import aztech.modern_industrialization.machines.recipe.MachineRecipe;
+import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
@@ -37,17 +38,26 @@ public class MachineCategoryParams {
     public final SlotPositions fluidInputs;
     public final SlotPositions fluidOutputs;
     public final ProgressBar.Parameters progressBarParams;
+    /**
+     * The type of the recipes shown in this category.
+     */
+    public final MachineRecipeType recipeType;
+    /**
+     * Additional filter for the recipes of {@link #recipeType}.
+     */
     public final Predicate<MachineRecipe> recipePredicate;
     public final List<String> workstations = new ArrayList<>();
 
     public MachineCategoryParams(String category, SlotPositions itemInputs, SlotPositions itemOutputs, SlotPositions fluidInputs,
-            SlotPositions fluidOutputs, ProgressBar.Parameters progressBarParams, Predicate<MachineRecipe> recipePredicate) {
+            SlotPositions fluidOutputs, ProgressBar.Parameters progressBarParams, MachineRecipeType recipeType,
+            Predicate<MachineRecipe> recipePredicate) {
         this.category = category;
         this.itemInputs = itemInputs;
         this.itemOutputs = itemOutputs;
         this.fluidInputs = fluidInputs;
         this.fluidOutputs = fluidOutputs;
         this.progressBarParams = progressBarParams;
+        this.recipeType = recipeType;
         this.recipePredicate = recipePredicate;
     }
 }
@@ -31,10 +31,10 @@ import aztech.modern_industrialization.machines.MachineScreenHandlers;
 import aztech.modern_industrialization.machines.init.MIMachineRecipeTypes;
 import aztech.modern_industrialization.machines.multiblocks.ShapeTemplate;
 import aztech.modern_industrialization.machines.recipe.MachineRecipe;
+import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
 import aztech.modern_industrialization.machines.recipe.RecipeConversions;
 import dev.architectury.event.CompoundEventResult;
 import java.util.*;
-import java.util.function.Predicate;
 import me.shedaniel.math.Point;
 import me.shedaniel.rei.api.client.plugins.REIClientPlugin;
 import me.shedaniel.rei.api.client.registry.category.CategoryRegistry;
@@ -46,7 +46,7 @@ import me.shedaniel.rei.api.common.category.CategoryIdentifier;
 import me.shedaniel.rei.api.common.display.Display;
 import me.shedaniel.rei.api.common.util.EntryStacks;
 import net.minecraft.fluid.Fluid;
-import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeManager;
 import net.minecraft.recipe.RecipeType;
 import net.minecraft.recipe.SmeltingRecipe;
 import net.minecraft.recipe.StonecuttingRecipe;
@@ -75,26 +75,34 @@ public class MachinesPlugin implements REIClientPlugin {
 
     @Override
     public void registerDisplays(DisplayRegistry registry) {
-        // regular recipes
+        // Regular recipes. The recipe manager already groups the recipes by type, so
+        // each category only goes through the recipes of its own type instead of
+        // testing every recipe with a filler.
+        RecipeManager recipeManager = registry.getRecipeManager();
+        Map<MachineRecipeType, List<Pair<Identifier, MachineCategoryParams>>> categoriesByType = new IdentityHashMap<>();
         for (Map.Entry<String, MachineCategoryParams> entry : ReiMachineRecipes.categories.entrySet()) {
-            Identifier id = new MIIdentifier(entry.getKey());
-            registry.registerFiller((Predicate<Recipe<?>>) recipe -> {
-                if (recipe instanceof MachineRecipe) {
-                    return entry.getValue().recipePredicate.test((MachineRecipe) recipe);
-                } else {
-                    return false;
+            categoriesByType.computeIfAbsent(entry.getValue().recipeType, t -> new ArrayList<>())
+                    .add(new Pair<>(new MIIdentifier(entry.getKey()), entry.getValue()));
+        }
+        for (Map.Entry<MachineRecipeType, List<Pair<Identifier, MachineCategoryParams>>> entry : categoriesByType.entrySet()) {
+            for (MachineRecipe recipe : recipeManager.listAllOfType(entry.getKey())) {
+                for (Pair<Identifier, MachineCategoryParams> category : entry.getValue()) {
+                    if (category.getRight().recipePredicate.test(recipe)) {
+                        registry.add(new MachineRecipeDisplay(category.getLeft(), recipe));
+                    }
                 }
-            }, recipe -> new MachineRecipeDisplay(id, (MachineRecipe) recipe));
+            }
         }
         // furnace recipes
         Identifier furnaceId = new MIIdentifier("bronze_furnace");
-        registry.registerFiller((Predicate<Recipe<?>>) recipe -> recipe.getType() == RecipeType.SMELTING,
-                recipe -> new MachineRecipeDisplay(furnaceId, RecipeConversions.of((SmeltingRecipe) recipe, MIMachineRecipeTypes.FURNACE)));
+        for (SmeltingRecipe recipe : recipeManager.listAllOfType(RecipeType.SMELTING)) {
+            registry.add(new MachineRecipeDisplay(furnaceId, RecipeConversions.of(recipe, MIMachineRecipeTypes.FURNACE)));
+        }
         // stonecutter recipes
         Identifier cuttingMachineId = new MIIdentifier("bronze_cutting_machine");
-        registry.registerFiller((Predicate<Recipe<?>>) recipe -> recipe.getType() == RecipeType.STONECUTTING,
-                recipe -> new MachineRecipeDisplay(cuttingMachineId,
-                        RecipeConversions.of((StonecuttingRecipe) recipe, MIMachineRecipeTypes.CUTTING_MACHINE)));
+        for (StonecuttingRecipe recipe : recipeManager.listAllOfType(RecipeType.STONECUTTING)) {
+            registry.add(new MachineRecipeDisplay(cuttingMachineId, RecipeConversions.of(recipe, MIMachineRecipeTypes.CUTTING_MACHINE)));
+        }
         // multiblock shapes
         for (Pair<String, ShapeTemplate> entry : ReiMachineRecipes.multiblockShapes) {
             registry.add(new MultiblockRecipeDisplay(entry.getLeft(), entry.getRight()));
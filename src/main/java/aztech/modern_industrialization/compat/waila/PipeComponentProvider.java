@@ -101,6 +101,12 @@ public class PipeComponentProvider implements IComponentProvider {
                 String tier = tag.getString("tier");
                 tooltip.add(new TranslatableText("text.modern_industrialization.cable_tier_" + tier));
                 tooltip.add(new TranslatableText("text.modern_industrialization.energy_bar", eu, maxEu).setStyle(style));
+                if (tag.contains("transfer")) {
+                    long transfer = tag.getLong("transfer");
+                    String bottleneck = tag.getString("bottleneck");
+                    tooltip.add(new TranslatableText("text.modern_industrialization.network_transfer", transfer).setStyle(style));
+                    tooltip.add(new TranslatableText("text.modern_industrialization.network_bottleneck_" + bottleneck).setStyle(style));
+                }
             }
         }
     }
@@ -28,6 +28,7 @@ import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkNode;
 import aztech.modern_industrialization.pipes.fluid.FluidNetworkNode;
 import aztech.modern_industrialization.pipes.impl.PipeBlockEntity;
 import aztech.modern_industrialization.util.NbtHelper;
+import java.util.Locale;
 import mcp.mobius.waila.api.IServerDataProvider;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.nbt.NbtCompound;
@@ -54,6 +55,8 @@ public class PipeDataProvider implements IServerDataProvider<BlockEntity> {
                 pipeData.putLong("eu", electricityNode.getEu());
                 pipeData.putLong("maxEu", electricityNode.getMaxEu());
                 pipeData.putString("tier", electricityNode.getTier().toString());
+                pipeData.putLong("transfer", electricityNode.getNetwork().getLastInserted());
+                pipeData.putString("bottleneck", electricityNode.getNetwork().getLastBottleneck().name().toLowerCase(Locale.ROOT));
             }
 
             data.put(node.getType().getIdentifier().toString(), pipeData);
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.debug;
+
+import static net.minecraft.server.command.CommandManager.argument;
+import static net.minecraft.server.command.CommandManager.literal;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+
+/**
+ * The {@code /mi profile} command, to control the {@link TickProfiler} and view
+ * its results.
+ */
+public class ProfileCommand {
+    private static final int DEFAULT_COUNT = 10;
+
+    public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(literal("mi")//
+                .then(literal("profile").requires(source -> source.hasPermissionLevel(2))//
+                        .then(literal("start").executes(ProfileCommand::start))//
+                        .then(literal("stop").executes(ProfileCommand::stop))//
+                        .then(literal("top").executes(context -> top(context, DEFAULT_COUNT))//
+                                .then(argument("count", IntegerArgumentType.integer(1, 1000))
+                                        .executes(context -> top(context, IntegerArgumentType.getInteger(context, "count")))))//
+                        .then(literal("dump").executes(ProfileCommand::dump))));
+    }
+
+    private static int start(CommandContext<ServerCommandSource> context) {
+        TickProfiler.start();
+        context.getSource().sendFeedback(new LiteralText("Started profiling machines and pipe networks."), true);
+        return 1;
+    }
+
+    private static int stop(CommandContext<ServerCommandSource> context) {
+        TickProfiler.stop();
+        context.getSource().sendFeedback(new LiteralText("Stopped profiling after " + formatSeconds(TickProfiler.getDurationNanos()) + "."), true);
+        return 1;
+    }
+
+    private static int top(CommandContext<ServerCommandSource> context, int count) {
+        ServerCommandSource source = context.getSource();
+        long duration = TickProfiler.getDurationNanos();
+        source.sendFeedback(new LiteralText("Profiled " + formatSeconds(duration) + (TickProfiler.isEnabled() ? " (running)" : "") + "."), false);
+
+        source.sendFeedback(new LiteralText("Top types:"), false);
+        List<TickProfiler.Entry> types = TickProfiler.getEntriesByType();
+        for (int i = 0; i < Math.min(count, types.size()); ++i) {
+            source.sendFeedback(new LiteralText(formatEntry(types.get(i), duration)), false);
+        }
+        source.sendFeedback(new LiteralText("Top block entities and networks:"), false);
+        List<TickProfiler.Entry> entries = TickProfiler.getEntries();
+        for (int i = 0; i < Math.min(count, entries.size()); ++i) {
+            source.sendFeedback(new LiteralText(formatEntry(entries.get(i), duration)), false);
+        }
+        return 1;
+    }
+
+    private static int dump(CommandContext<ServerCommandSource> context) {
+        long duration = TickProfiler.getDurationNanos();
+        String fileName = "profile-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".txt";
+        Path path = FabricLoader.getInstance().getGameDir().resolve("modern_industrialization").resolve(fileName);
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+                writer.write("Profiled " + formatSeconds(duration) + "\n\nTypes:\n");
+                for (TickProfiler.Entry entry : TickProfiler.getEntriesByType()) {
+                    writer.write(formatEntry(entry, duration) + "\n");
+                }
+                writer.write("\nBlock entities and networks:\n");
+                for (TickProfiler.Entry entry : TickProfiler.getEntries()) {
+                    writer.write(formatEntry(entry, duration) + "\n");
+                }
+            }
+        } catch (IOException exception) {
+            context.getSource().sendError(new LiteralText("Failed to write profiling results: " + exception.getMessage()));
+            return 0;
+        }
+
+        context.getSource().sendFeedback(new LiteralText("Dumped profiling results to " + path), false);
+        return 1;
+    }
+
+    private static String formatEntry(TickProfiler.Entry entry, long duration) {
+        long total = entry.getTotalNanos();
+        long ticks = Math.max(1, entry.getTicks());
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("%.3f ms/s, %.1f us/tick: %s", total / 1e6 / Math.max(duration / 1e9, 1e-9), total / 1e3 / ticks, entry.type));
+        if (entry.pos != null && entry.dimension != null) {
+            result.append(" at ").append(entry.pos.toShortString()).append(" in ").append(entry.dimension.getValue());
+        }
+        return result.toString();
+    }
+
+    private static String formatSeconds(long nanos) {
+        return String.format("%.1f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.debug;
+
+import aztech.modern_industrialization.pipes.api.PipeNetwork;
+import aztech.modern_industrialization.util.Tickable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Opt-in profiler of the server ticks of the mod's block entities and pipe
+ * networks, controlled by the {@code /mi profile} command. When it is disabled,
+ * the only overhead of the hooks is a check of a volatile flag.
+ */
+public class TickProfiler {
+    private static volatile boolean enabled = false;
+    private static volatile long startNanos = 0;
+    private static volatile long stopNanos = 0;
+    /**
+     * The timings of every profiled block entity or network. They are keyed by
+     * type, dimension and position or network id, so that the profiler doesn't
+     * keep unloaded block entities or worlds alive.
+     */
+    private static final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Clear the previous results and start profiling.
+     */
+    public static void start() {
+        entries.clear();
+        startNanos = System.nanoTime();
+        enabled = true;
+    }
+
+    public static void stop() {
+        if (enabled) {
+            enabled = false;
+            stopNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Duration of the profiling, up to now if it is still running.
+     */
+    public static long getDurationNanos() {
+        return (enabled ? System.nanoTime() : stopNanos) - startNanos;
+    }
+
+    public static void tickBlockEntity(Tickable tickable, BlockEntity be) {
+        long start = System.nanoTime();
+        tickable.tick();
+        long elapsed = System.nanoTime() - start;
+        String type = Registry.BLOCK_ENTITY_TYPE.getId(be.getType()).toString();
+        RegistryKey<World> dimension = be.getWorld().getRegistryKey();
+        BlockPos pos = be.getPos();
+        entries.computeIfAbsent(new Key(type, dimension, pos), k -> new Entry(type, dimension, pos)).record(elapsed);
+    }
+
+    /**
+     * Tick a pipe network from one of its nodes. The position of the first node
+     * that ticks the network is recorded.
+     */
+    public static void tickNetwork(PipeNetwork network, World world, BlockPos pos) {
+        long start = System.nanoTime();
+        network.tick(world);
+        long elapsed = System.nanoTime() - start;
+        String type = "network " + network.manager.getType().getIdentifier();
+        RegistryKey<World> dimension = world.getRegistryKey();
+        entries.computeIfAbsent(new Key(type, dimension, network.getId()), k -> new Entry(type, dimension, pos.toImmutable())).record(elapsed);
+    }
+
+    /**
+     * Return the profiled block entities and networks, sorted by decreasing total
+     * time.
+     */
+    public static List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Return the total time and tick count of every block entity type and network
+     * type, sorted by decreasing total time.
+     */
+    public static List<Entry> getEntriesByType() {
+        Map<String, Entry> byType = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            Entry typeEntry = byType.computeIfAbsent(entry.type, type -> new Entry(type, null, null));
+            typeEntry.totalNanos.add(entry.getTotalNanos());
+            typeEntry.ticks.add(entry.getTicks());
+        }
+        List<Entry> result = new ArrayList<>(byType.values());
+        result.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * The location is the position of a block entity, or the id of a network.
+     */
+    private record Key(String type, RegistryKey<World> dimension, Object location) {
+    }
+
+    public static class Entry {
+        public final String type;
+        @Nullable
+        public final RegistryKey<World> dimension;
+        @Nullable
+        public final BlockPos pos;
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder ticks = new LongAdder();
+
+        private Entry(String type, @Nullable RegistryKey<World> dimension, @Nullable BlockPos pos) {
+            this.type = type;
+            this.dimension = dimension;
+            this.pos = pos;
+        }
+
+        private void record(long nanos) {
+            totalNanos.add(nanos);
+            ticks.increment();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getTicks() {
+            return ticks.sum();
+        }
+    }
+}
@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.inventory;
 
 import aztech.modern_industrialization.util.Simulation;
+import java.util.ArrayList;
 import java.util.List;
 import net.fabricmc.fabric.api.transfer.v1.storage.ResourceKey;
 import net.fabricmc.fabric.api.transfer.v1.storage.StoragePreconditions;
@@ -47,21 +48,17 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
     protected boolean playerExtract = true;
     protected boolean pipesInsert = false;
     protected boolean pipesExtract = false;
+    // Listeners are only allocated when needed, most stacks don't have any
+    private List<ChangeListener> listeners = null;
+    private List<Object> listenerTokens = null;
+    // Set while a transactional change is applied, see onFinalCommit
+    private boolean deferNotifications = false;
 
     public AbstractConfigurableStack() {
     }
 
     public AbstractConfigurableStack(AbstractConfigurableStack<T, K> other) {
-        this.key = other.key;
-        this.amount = other.amount;
-        this.lockedInstance = other.lockedInstance;
-        this.playerLocked = other.playerLocked;
-        this.machineLocked = other.machineLocked;
-        this.playerLockable = other.playerLockable;
-        this.playerInsert = other.playerInsert;
-        this.playerExtract = other.playerExtract;
-        this.pipesInsert = other.pipesInsert;
-        this.pipesExtract = other.pipesExtract;
+        copyStateFrom(other);
     }
 
     public AbstractConfigurableStack(NbtCompound tag) {
@@ -103,10 +100,34 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
         if (o == null || getClass() != o.getClass())
             return false;
         AbstractConfigurableStack<?, ?> that = (AbstractConfigurableStack<?, ?>) o;
-        return amount == that.amount && playerLocked == that.playerLocked && machineLocked == that.machineLocked
-                && playerLockable == that.playerLockable && playerInsert == that.playerInsert && playerExtract == that.playerExtract
-                && pipesInsert == that.pipesInsert && pipesExtract == that.pipesExtract && key.equals(that.key)
-                && lockedInstance == that.lockedInstance;
+        return amount == that.amount && equalsIgnoringAmount(that);
+    }
+
+    /**
+     * Return true if the other stack, which must have the same class, only differs
+     * from this one by its amount. Used to only sync the amount when possible.
+     */
+    public boolean equalsIgnoringAmount(AbstractConfigurableStack<?, ?> that) {
+        return playerLocked == that.playerLocked && machineLocked == that.machineLocked && playerLockable == that.playerLockable
+                && playerInsert == that.playerInsert && playerExtract == that.playerExtract && pipesInsert == that.pipesInsert
+                && pipesExtract == that.pipesExtract && key.equals(that.key) && lockedInstance == that.lockedInstance;
+    }
+
+    /**
+     * Overwrite the state of this stack with that of the other stack, without
+     * notifying the listeners.
+     */
+    protected void copyStateFrom(AbstractConfigurableStack<T, K> other) {
+        this.key = other.key;
+        this.amount = other.amount;
+        this.lockedInstance = other.lockedInstance;
+        this.playerLocked = other.playerLocked;
+        this.machineLocked = other.machineLocked;
+        this.playerLockable = other.playerLockable;
+        this.playerInsert = other.playerInsert;
+        this.playerExtract = other.playerExtract;
+        this.pipesInsert = other.pipesInsert;
+        this.pipesExtract = other.pipesExtract;
     }
 
     public void setAmount(long amount) {
@@ -114,6 +135,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
         if (amount == 0) {
             this.key = getEmptyKey();
         }
+        notifyListeners();
     }
 
     public void increment(long amount) {
@@ -126,6 +148,60 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
 
     public void setKey(K key) {
         this.key = key;
+        notifyListeners();
+    }
+
+    /**
+     * Register a listener that will be notified every time this stack changes,
+     * until {@link ChangeListener#isValid} returns false for the token.
+     */
+    public void addListener(ChangeListener listener, Object token) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+            listenerTokens = new ArrayList<>(1);
+        }
+        removeInvalidListeners();
+        for (int i = 0; i < listeners.size(); ++i) {
+            if (listeners.get(i) == listener && listenerTokens.get(i) == token) {
+                return;
+            }
+        }
+        listeners.add(listener);
+        listenerTokens.add(token);
+    }
+
+    private void removeInvalidListeners() {
+        for (int i = listeners.size() - 1; i >= 0; --i) {
+            if (!listeners.get(i).isValid(listenerTokens.get(i))) {
+                listeners.remove(i);
+                listenerTokens.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Change the key and amount of this stack as part of a transaction. The
+     * listeners are only notified once the outer transaction is committed, so
+     * simulations and aborted transactions don't notify them.
+     */
+    void setInTransaction(K key, long amount, Transaction transaction) {
+        updateSnapshots(transaction);
+        deferNotifications = true;
+        try {
+            setKey(key);
+            setAmount(amount);
+        } finally {
+            deferNotifications = false;
+        }
+    }
+
+    protected void notifyListeners() {
+        if (listeners != null && !deferNotifications) {
+            removeInvalidListeners();
+            for (ChangeListener listener : listeners) {
+                listener.onChange();
+            }
+        }
     }
 
     public boolean isResourceAllowedByLock(T instance) {
@@ -157,11 +233,13 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
             throw new RuntimeException("Trying to override locked instance");
         machineLocked = true;
         this.lockedInstance = lockedInstance;
+        notifyListeners();
     }
 
     public void disableMachineLock() {
         machineLocked = false;
         updatedLockedInstance();
+        notifyListeners();
     }
 
     public T getLockedInstance() {
@@ -176,6 +254,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
         if (playerLockable) {
             playerLocked = !playerLocked;
             updatedLockedInstance();
+            notifyListeners();
         }
     }
 
@@ -187,6 +266,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
                 playerLocked = !playerLocked;
             }
             updatedLockedInstance();
+            notifyListeners();
         }
     }
 
@@ -214,6 +294,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
                     if (stack.key.isOf(instance) || (stack.isEmpty() && allowEmptyStacks)) {
                         stack.lockedInstance = instance;
                         stack.playerLocked = true;
+                        stack.notifyListeners();
                         return;
                     }
                 }
@@ -229,6 +310,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
             if (simulation.isActing()) {
                 lockedInstance = instance;
                 playerLocked = true;
+                notifyListeners();
             }
             return true;
         }
@@ -248,8 +330,7 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
         StoragePreconditions.notEmptyNotNegative(key, maxAmount);
         if (pipesExtract && key.equals(this.key)) {
             long extracted = Math.min(amount, maxAmount);
-            updateSnapshots(transaction);
-            decrement(extracted);
+            setInTransaction(key, amount - extracted, transaction);
             return extracted;
         }
         return 0;
@@ -286,6 +367,11 @@ public abstract class AbstractConfigurableStack<T, K extends ResourceKey<T>> ext
         this.key = ra.resource();
     }
 
+    @Override
+    protected void onFinalCommit() {
+        notifyListeners();
+    }
+
     public NbtCompound toNbt() {
         NbtCompound tag = new NbtCompound();
         tag.put("key", key.toNbt());
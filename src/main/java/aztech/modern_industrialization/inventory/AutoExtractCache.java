@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.inventory;
+
+import aztech.modern_industrialization.util.StorageUtil2;
+import java.util.function.UnaryOperator;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiLookup;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Automatic extraction from an inventory to its neighbors. The neighbors are
+ * found with a {@link BlockApiCache}, and extraction is only attempted after
+ * the inventory changed, or after a delay that doubles every time a neighbor
+ * refuses the resources. The stack listeners are only notified when a
+ * transaction is committed, so attempts that move nothing don't wake up the
+ * machine or mark its inventory as changed.
+ */
+class AutoExtractCache<T> extends ChangeListener {
+    private static final int MAX_DELAY = 64;
+
+    private final Storage<T> source;
+    private final BlockApiLookup<Storage<T>, @NotNull Direction> lookup;
+    private final UnaryOperator<Storage<T>> targetWrapper;
+    private final Side<T>[] sides;
+
+    @SuppressWarnings("unchecked")
+    AutoExtractCache(Storage<T> source, BlockApiLookup<Storage<T>, @NotNull Direction> lookup, UnaryOperator<Storage<T>> targetWrapper) {
+        this.source = source;
+        this.lookup = lookup;
+        this.targetWrapper = targetWrapper;
+        this.sides = new Side[6];
+    }
+
+    @Override
+    protected void onChange() {
+        for (Side<T> side : sides) {
+            if (side != null) {
+                side.sourceChanged = true;
+            }
+        }
+    }
+
+    @Override
+    protected boolean isValid(Object token) {
+        return true;
+    }
+
+    void extract(World world, BlockPos pos, Direction direction) {
+        Side<T> side = sides[direction.getId()];
+        if (side == null) {
+            side = sides[direction.getId()] = new Side<>(BlockApiCache.create(lookup, (ServerWorld) world, pos.offset(direction)));
+        }
+
+        if (side.delay > 0) {
+            side.delay--;
+            return;
+        }
+        if (!side.sourceChanged && side.backoff == 0) {
+            // Everything that could be extracted was extracted
+            return;
+        }
+
+        Storage<T> target = targetWrapper.apply(side.cache.find(direction.getOpposite()));
+        if (target == null) {
+            // Try again when a neighbor is placed, the cache makes the lookup cheap
+            return;
+        }
+
+        long moved = StorageUtil.move(source, target, k -> true, Long.MAX_VALUE, null);
+        side.sourceChanged = false;
+        if (StorageUtil2.findExtractableResource(source, null) == null) {
+            side.backoff = 0;
+        } else if (moved > 0) {
+            // Some resources were accepted, try again next tick
+            side.backoff = 1;
+            side.delay = 0;
+        } else {
+            side.backoff = side.backoff == 0 ? 1 : Math.min(side.backoff * 2, MAX_DELAY);
+            side.delay = side.backoff;
+        }
+    }
+
+    private static class Side<T> {
+        private final BlockApiCache<Storage<T>, @NotNull Direction> cache;
+        private boolean sourceChanged = true;
+        /**
+         * Current back-off delay, or 0 if the source was emptied.
+         */
+        private int backoff = 0;
+        /**
+         * Remaining ticks until the next attempt.
+         */
+        private int delay = 0;
+
+        private Side(BlockApiCache<Storage<T>, @NotNull Direction> cache) {
+            this.cache = cache;
+        }
+    }
+}
@@ -21,27 +21,31 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package aztech.modern_industrialization.machines;
+package aztech.modern_industrialization.inventory;
 
-import net.fabricmc.api.EnvType;
-import net.fabricmc.api.Environment;
-import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import java.util.List;
 
-public class ClientMachinePackets {
-    @Environment(EnvType.CLIENT)
-    public static final ClientPlayNetworking.PlayChannelHandler ON_COMPONENT_SYNC = (mc, handler, buf, sender) -> {
-        int syncId = buf.readInt();
-        int componentIndex = buf.readInt();
-        buf.retain();
-        mc.execute(() -> {
-            try {
-                if (mc.player.currentScreenHandler.syncId == syncId) {
-                    MachineScreenHandlers.Client screenHandler = (MachineScreenHandlers.Client) mc.player.currentScreenHandler;
-                    screenHandler.components.get(componentIndex).read(buf);
-                }
-            } finally {
-                buf.release();
-            }
-        });
-    };
+/**
+ * A listener that is notified when configurable stacks change. Stacks keep a
+ * strong reference to their listeners, so every listener is registered with a
+ * token and removed lazily by the stack once {@link #isValid} returns false for
+ * that token.
+ */
+public abstract class ChangeListener {
+    /**
+     * Called after one of the listened stacks has changed. Changes made through
+     * transactions are only reported once the outer transaction is committed.
+     */
+    protected abstract void onChange();
+
+    /**
+     * Return false if the registration with this token should be removed.
+     */
+    protected abstract boolean isValid(Object token);
+
+    public final void listenAll(List<? extends AbstractConfigurableStack<?, ?>> stacks, Object token) {
+        for (AbstractConfigurableStack<?, ?> stack : stacks) {
+            stack.addListener(this, token);
+        }
+    }
 }
@@ -94,15 +94,17 @@ public class ConfigurableFluidStack extends AbstractConfigurableStack<Fluid, Flu
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o)
-            return true;
-        if (o == null || getClass() != o.getClass())
-            return false;
-        if (!super.equals(o))
-            return false;
-        ConfigurableFluidStack that = (ConfigurableFluidStack) o;
-        return capacity == that.capacity;
+    public boolean equalsIgnoringAmount(AbstractConfigurableStack<?, ?> that) {
+        return super.equalsIgnoringAmount(that) && capacity == ((ConfigurableFluidStack) that).capacity;
+    }
+
+    /**
+     * Overwrite the state of this stack with that of the other stack, without
+     * notifying the listeners.
+     */
+    public void copyFrom(ConfigurableFluidStack other) {
+        copyStateFrom(other);
+        this.capacity = other.capacity;
     }
 
     /**
@@ -24,70 +24,47 @@
 package aztech.modern_industrialization.inventory;
 
 import aztech.modern_industrialization.api.ReiDraggable;
-import aztech.modern_industrialization.inventory.ConfigurableFluidStack.ConfigurableFluidSlot;
 import aztech.modern_industrialization.inventory.ConfigurableItemStack.ConfigurableItemSlot;
 import aztech.modern_industrialization.util.Simulation;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemKey;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.slot.Slot;
 
 public class ConfigurableInventoryPacketHandlers {
     public static class S2C {
-        // sync id, slot id, slot tag
-        public static final ClientPlayNetworking.PlayChannelHandler UPDATE_ITEM_SLOT = (mc, handler, buf, sender) -> {
+        // sync id, changed item slots, changed fluid slots, extra data, see
+        // ConfigurableScreenHandler#sendContentUpdates
+        public static final ClientPlayNetworking.PlayChannelHandler UPDATE_SLOTS = (mc, handler, buf, sender) -> {
             int syncId = buf.readInt();
-            int stackId = buf.readInt();
-            NbtCompound tag = buf.readNbt();
+            buf.retain();
             mc.execute(() -> {
-                ScreenHandler sh = mc.player.currentScreenHandler;
-                if (sh.syncId == syncId) {
-                    ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
-                    ConfigurableItemStack oldStack = csh.inventory.getItemStacks().get(stackId);
-                    // update stack
-                    ConfigurableItemStack newStack = new ConfigurableItemStack(tag);
-                    csh.inventory.getItemStacks().set(stackId, newStack);
-                    // update slot
-                    for (int i = 0; i < csh.slots.size(); ++i) {
-                        Slot slot = csh.slots.get(i);
-                        if (slot instanceof ConfigurableItemSlot is) {
-                            if (is.getConfStack() == oldStack) {
-                                csh.slots.set(i, newStack.new ConfigurableItemSlot(is));
-                                return;
+                try {
+                    ScreenHandler sh = mc.player.currentScreenHandler;
+                    if (sh.syncId == syncId) {
+                        ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
+                        for (int index; (index = buf.readVarInt()) != 0;) {
+                            ConfigurableItemStack stack = csh.inventory.getItemStacks().get(index - 1);
+                            if (buf.readBoolean()) {
+                                stack.setAmount(buf.readVarLong());
+                            } else {
+                                stack.copyFrom(new ConfigurableItemStack(buf.readNbt()));
                             }
                         }
-                    }
-                    throw new RuntimeException("Could not find slot to replace!");
-                }
-            });
-        };
-        // sync id, slot id, slot tag
-        public static final ClientPlayNetworking.PlayChannelHandler UPDATE_FLUID_SLOT = (mc, handler, buf, sender) -> {
-            int syncId = buf.readInt();
-            int stackId = buf.readInt();
-            NbtCompound tag = buf.readNbt();
-            mc.execute(() -> {
-                ScreenHandler sh = mc.player.currentScreenHandler;
-                if (sh.syncId == syncId) {
-                    ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
-                    ConfigurableFluidStack oldStack = csh.inventory.getFluidStacks().get(stackId);
-                    // update stack
-                    ConfigurableFluidStack newStack = new ConfigurableFluidStack(tag);
-                    csh.inventory.getFluidStacks().set(stackId, newStack);
-                    // update slot
-                    for (int i = 0; i < csh.slots.size(); ++i) {
-                        Slot slot = csh.slots.get(i);
-                        if (slot instanceof ConfigurableFluidSlot fs) {
-                            if (fs.getConfStack() == oldStack) {
-                                csh.slots.set(i, newStack.new ConfigurableFluidSlot(fs));
-                                return;
+                        for (int index; (index = buf.readVarInt()) != 0;) {
+                            ConfigurableFluidStack stack = csh.inventory.getFluidStacks().get(index - 1);
+                            if (buf.readBoolean()) {
+                                stack.setAmount(buf.readVarLong());
+                            } else {
+                                stack.copyFrom(new ConfigurableFluidStack(buf.readNbt()));
                             }
                         }
+                        csh.readExtraUpdates(buf);
                     }
-                    throw new RuntimeException("Could not find slot to replace!");
+                } finally {
+                    buf.release();
                 }
             });
         };
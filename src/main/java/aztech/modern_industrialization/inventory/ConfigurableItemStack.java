@@ -88,6 +88,20 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemK
         this.adjustedCapacity = other.adjustedCapacity;
     }
 
+    @Override
+    public boolean equalsIgnoringAmount(AbstractConfigurableStack<?, ?> that) {
+        return super.equalsIgnoringAmount(that) && adjustedCapacity == ((ConfigurableItemStack) that).adjustedCapacity;
+    }
+
+    /**
+     * Overwrite the state of this stack with that of the other stack, without
+     * notifying the listeners.
+     */
+    public void copyFrom(ConfigurableItemStack other) {
+        copyStateFrom(other);
+        this.adjustedCapacity = other.adjustedCapacity;
+    }
+
     @Override
     protected ItemKey getEmptyKey() {
         return ItemKey.empty();
@@ -147,6 +161,7 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemK
             delta = -delta;
         }
         adjustedCapacity = Math.min(64, Math.max((int) amount, adjustedCapacity + delta));
+        notifyListeners();
     }
 
     public int getAdjustedCapacity() {
@@ -197,6 +212,7 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemK
         public void setStack(ItemStack stack) {
             key = ItemKey.of(stack);
             amount = stack.getCount();
+            notifyListeners();
             markDirty.run();
             cachedReturnedStack = stack;
         }
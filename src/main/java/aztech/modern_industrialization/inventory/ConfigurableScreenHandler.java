@@ -25,9 +25,10 @@ package aztech.modern_industrialization.inventory;
 
 import dev.technici4n.fasttransferlib.experimental.api.context.ContainerItemContext;
 import dev.technici4n.fasttransferlib.experimental.api.fluid.ItemFluidStorage;
-import io.netty.buffer.Unpooled;
 import java.util.List;
-import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import java.util.function.Supplier;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.storage.StorageView;
@@ -53,6 +54,8 @@ public abstract class ConfigurableScreenHandler extends ScreenHandler {
     protected MIInventory inventory;
     private List<ConfigurableItemStack> trackedItems;
     private List<ConfigurableFluidStack> trackedFluids;
+    // Only allocated by sendContentUpdates when something changed
+    private PacketByteBuf updateBuf;
 
     protected ConfigurableScreenHandler(ScreenHandlerType<?> type, int syncId, PlayerInventory playerInventory, MIInventory inventory) {
         super(type, syncId);
@@ -65,34 +68,92 @@ public abstract class ConfigurableScreenHandler extends ScreenHandler {
         }
     }
 
+    /**
+     * Send the changes of the configurable stacks and of the extra data since the
+     * last call in a single packet. Stacks for which only the amount changed only
+     * send their new amount. The packet is only allocated once something changed.
+     */
     @Override
     public void sendContentUpdates() {
-        if (playerInventory.player instanceof ServerPlayerEntity) {
-            ServerPlayerEntity player = (ServerPlayerEntity) playerInventory.player;
+        if (playerInventory.player instanceof ServerPlayerEntity player) {
+            List<ConfigurableItemStack> itemStacks = inventory.getItemStacks();
             for (int i = 0; i < trackedItems.size(); i++) {
-                if (!trackedItems.get(i).equals(inventory.getItemStacks().get(i))) {
-                    trackedItems.set(i, new ConfigurableItemStack(inventory.getItemStacks().get(i)));
-                    PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
-                    buf.writeInt(syncId);
-                    buf.writeInt(i);
-                    buf.writeNbt(trackedItems.get(i).toNbt());
-                    ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ConfigurableInventoryPackets.UPDATE_ITEM_SLOT, buf);
+                ConfigurableItemStack tracked = trackedItems.get(i);
+                ConfigurableItemStack current = itemStacks.get(i);
+                if (!tracked.equals(current)) {
+                    writeStackUpdate(getUpdateBuf(0), i, tracked, current);
+                    tracked.copyFrom(current);
                 }
             }
+            endUpdateSection();
+            List<ConfigurableFluidStack> fluidStacks = inventory.getFluidStacks();
             for (int i = 0; i < trackedFluids.size(); i++) {
-                if (!trackedFluids.get(i).equals(inventory.getFluidStacks().get(i))) {
-                    trackedFluids.set(i, new ConfigurableFluidStack(inventory.getFluidStacks().get(i)));
-                    PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
-                    buf.writeInt(syncId);
-                    buf.writeInt(i);
-                    buf.writeNbt(trackedFluids.get(i).toNbt());
-                    ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ConfigurableInventoryPackets.UPDATE_FLUID_SLOT, buf);
+                ConfigurableFluidStack tracked = trackedFluids.get(i);
+                ConfigurableFluidStack current = fluidStacks.get(i);
+                if (!tracked.equals(current)) {
+                    writeStackUpdate(getUpdateBuf(1), i, tracked, current);
+                    tracked.copyFrom(current);
                 }
             }
+            endUpdateSection();
+            writeExtraUpdates(() -> getUpdateBuf(2));
+            endUpdateSection();
+            if (updateBuf != null) {
+                ServerPlayNetworking.send(player, ConfigurableInventoryPackets.UPDATE_SLOTS, updateBuf);
+                updateBuf = null;
+            }
         }
         super.sendContentUpdates();
     }
 
+    /**
+     * Return the buffer of the slot update packet, creating it on the first
+     * change. The sections before {@code section} are then empty, and they are
+     * ended right away.
+     */
+    private PacketByteBuf getUpdateBuf(int section) {
+        if (updateBuf == null) {
+            updateBuf = PacketByteBufs.create();
+            updateBuf.writeInt(syncId);
+            for (int i = 0; i < section; ++i) {
+                updateBuf.writeVarInt(0);
+            }
+        }
+        return updateBuf;
+    }
+
+    private void endUpdateSection() {
+        if (updateBuf != null) {
+            updateBuf.writeVarInt(0);
+        }
+    }
+
+    // slot id + 1, then true and the new amount, or false and the full slot tag
+    private static void writeStackUpdate(PacketByteBuf buf, int index, AbstractConfigurableStack<?, ?> tracked, AbstractConfigurableStack<?, ?> current) {
+        buf.writeVarInt(index + 1);
+        if (tracked.equalsIgnoringAmount(current)) {
+            buf.writeBoolean(true);
+            buf.writeVarLong(current.amount());
+        } else {
+            buf.writeBoolean(false);
+            buf.writeNbt(current.toNbt());
+        }
+    }
+
+    /**
+     * Write the changes of the data synced by subclasses to the slot update
+     * packet. The packet buffer is only allocated by the first call to
+     * {@code buf.get()}, so it should only be called when something changed.
+     */
+    protected void writeExtraUpdates(Supplier<PacketByteBuf> buf) {
+    }
+
+    /**
+     * Read the changes written by {@link #writeExtraUpdates} on the client side.
+     */
+    protected void readExtraUpdates(PacketByteBuf buf) {
+    }
+
     @Override
     public void onSlotClick(int i, int j, SlotActionType actionType, PlayerEntity playerEntity) {
         if (i >= 0) {
@@ -31,6 +31,7 @@ import dev.technici4n.fasttransferlib.experimental.api.item.ItemStorage;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.UnaryOperator;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
@@ -47,6 +48,8 @@ public final class MIInventory implements IComponent {
     public final MIFluidStorage fluidStorage;
     public final SlotPositions itemPositions;
     public final SlotPositions fluidPositions;
+    private final AutoExtractCache<ItemKey> itemExtract;
+    private final AutoExtractCache<FluidKey> fluidExtract;
 
     /**
      * Build a new MI inventory. If you need to access the stacks, make sure to
@@ -67,6 +70,10 @@ public final class MIInventory implements IComponent {
             throw new IllegalArgumentException(
                     "Mismatched fluid slots and positions. Slot count: " + fluidStacks.size() + ", position count: " + fluidPositions.size());
         }
+        this.itemExtract = new AutoExtractCache<>(itemStorage, ItemStorage.SIDED, StorageUtil2::wrapInventory);
+        this.fluidExtract = new AutoExtractCache<>(fluidStorage, FluidStorage.SIDED, UnaryOperator.identity());
+        itemStorage.addListener(itemExtract, null);
+        fluidStorage.addListener(fluidExtract, null);
     }
 
     public List<ConfigurableItemStack> getItemStacks() {
@@ -77,21 +84,29 @@ public final class MIInventory implements IComponent {
         return fluidStorage.stacks;
     }
 
-    public void autoExtractItems(World world, BlockPos pos, Direction direction) {
-        Storage<ItemKey> target = ItemStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
-        target = StorageUtil2.wrapInventory(target);
+    /**
+     * Register a listener that will be notified when any stack of this inventory
+     * changes.
+     */
+    public void addListener(ChangeListener listener, Object token) {
+        itemStorage.addListener(listener, token);
+        fluidStorage.addListener(listener, token);
+    }
 
-        if (target != null) {
-            StorageUtil.move(itemStorage, target, k -> true, Long.MAX_VALUE, null);
-        }
+    /**
+     * Move items to the neighbor in the given direction. This is cheap to call
+     * every tick: nothing is done until the inventory changes, and a neighbor that
+     * refuses the items is tried less and less often.
+     */
+    public void autoExtractItems(World world, BlockPos pos, Direction direction) {
+        itemExtract.extract(world, pos, direction);
     }
 
+    /**
+     * Fluid version of {@link #autoExtractItems}.
+     */
     public void autoExtractFluids(World world, BlockPos pos, Direction direction) {
-        Storage<FluidKey> target = FluidStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
-
-        if (target != null) {
-            StorageUtil.move(fluidStorage, target, k -> true, Long.MAX_VALUE, null);
-        }
+        fluidExtract.extract(world, pos, direction);
     }
 
     public void autoInsertItems(World world, BlockPos pos, Direction direction) {
@@ -124,6 +139,8 @@ public final class MIInventory implements IComponent {
 
         SlotConfig.readSlotList(itemStorage.stacks, newItemStacks);
         SlotConfig.readSlotList(fluidStorage.stacks, newFluidStacks);
+        itemStorage.refreshListeners();
+        fluidStorage.refreshListeners();
     }
 
     static {
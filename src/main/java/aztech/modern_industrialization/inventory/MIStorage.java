@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.inventory;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Predicate;
@@ -35,6 +36,8 @@ import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 public class MIStorage<T, K extends ResourceKey<T>, S extends AbstractConfigurableStack<T, K>> implements Storage<K> {
     final List<S> stacks;
     private final boolean oneSlotPerResource; // true for fluids, false for items
+    private final List<ChangeListener> listeners = new ArrayList<>();
+    private final List<Object> listenerTokens = new ArrayList<>();
 
     protected MIStorage(List<S> stacks, boolean oneSlotPerResource) {
         this.stacks = stacks;
@@ -57,9 +60,7 @@ public class MIStorage<T, K extends ResourceKey<T>, S extends AbstractConfigurab
                         long inserted = Math.min(maxAmount - totalInserted, stack.getRemainingCapacityFor(resource));
 
                         if (inserted > 0) {
-                            stack.updateSnapshots(tx);
-                            stack.setKey(resource);
-                            stack.increment(inserted);
+                            stack.setInTransaction(resource, stack.amount() + inserted, tx);
 
                             if (lockSlots) {
                                 stack.enableMachineLock(resource.getResource());
@@ -79,6 +80,30 @@ public class MIStorage<T, K extends ResourceKey<T>, S extends AbstractConfigurab
         return totalInserted;
     }
 
+    /**
+     * Register a listener that will be notified when any stack of this storage
+     * changes. The listener is kept if the stacks are replaced.
+     */
+    public void addListener(ChangeListener listener, Object token) {
+        listeners.add(listener);
+        listenerTokens.add(token);
+        listener.listenAll(stacks, token);
+    }
+
+    /**
+     * Register the listeners again, must be called after the stacks were replaced.
+     */
+    void refreshListeners() {
+        for (int i = listeners.size() - 1; i >= 0; --i) {
+            if (listeners.get(i).isValid(listenerTokens.get(i))) {
+                listeners.get(i).listenAll(stacks, listenerTokens.get(i));
+            } else {
+                listeners.remove(i);
+                listenerTokens.remove(i);
+            }
+        }
+    }
+
     @Override
     public long insert(K resource, long maxAmount, Transaction transaction) {
         return insert(resource, maxAmount, transaction, AbstractConfigurableStack::canPipesInsert, false);
@@ -29,6 +29,7 @@ import aztech.modern_industrialization.inventory.ConfigurableItemStack;
 import aztech.modern_industrialization.inventory.MIInventory;
 import aztech.modern_industrialization.machines.gui.MachineGuiParameters;
 import aztech.modern_industrialization.machines.models.MachineModelClientData;
+import aztech.modern_industrialization.machines.multiblocks.world.ChunkEventListeners;
 import aztech.modern_industrialization.util.NbtHelper;
 import aztech.modern_industrialization.util.RenderHelper;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemStorage;
@@ -167,6 +168,7 @@ public abstract class MachineBlockEntity extends FastBlockEntity
         for (IComponent component : icomponents) {
             component.readClientNbt(tag);
         }
+        ChunkEventListeners.onClientBlockChange(world, pos);
         if (forceChunkRemesh) {
             RenderHelper.forceChunkRemesh((ClientWorld) world, pos);
         }
@@ -32,10 +32,6 @@ import net.minecraft.screen.ScreenHandler;
 import net.minecraft.util.Identifier;
 
 public class MachinePackets {
-    public static class S2C {
-        public static final Identifier COMPONENT_SYNC = new MIIdentifier("machine_component_sync");
-    }
-
     public static class C2S {
         public static final Identifier SET_AUTO_EXTRACT = new MIIdentifier("set_auto_extract");
         public static final ServerPlayNetworking.PlayChannelHandler ON_SET_AUTO_EXTRACT = (ms, player, handler, buf, sender) -> {
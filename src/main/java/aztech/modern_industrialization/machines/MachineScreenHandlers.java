@@ -39,7 +39,6 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
-import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.minecraft.client.gui.screen.ingame.HandledScreen;
 import net.minecraft.client.gui.widget.ButtonWidget;
@@ -53,7 +52,6 @@ import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.slot.Slot;
-import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.LiteralText;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
@@ -109,17 +107,16 @@ public class MachineScreenHandlers {
             }
         }
 
+        // component id + 1 and component data for each changed component, the 0 is
+        // written by ConfigurableScreenHandler
         @Override
-        public void sendContentUpdates() {
-            super.sendContentUpdates();
+        protected void writeExtraUpdates(Supplier<PacketByteBuf> buf) {
             for (int i = 0; i < blockEntity.syncedComponents.size(); ++i) {
                 SyncedComponent.Server component = blockEntity.syncedComponents.get(i);
                 if (component.needsSync(trackedData.get(i))) {
-                    PacketByteBuf buf = PacketByteBufs.create();
-                    buf.writeInt(syncId);
-                    buf.writeInt(i);
-                    component.writeCurrentData(buf);
-                    ServerPlayNetworking.send((ServerPlayerEntity) playerInventory.player, MachinePackets.S2C.COMPONENT_SYNC, buf);
+                    PacketByteBuf packetBuf = buf.get();
+                    packetBuf.writeVarInt(i + 1);
+                    component.writeCurrentData(packetBuf);
                     trackedData.set(i, component.copyData());
                 }
             }
@@ -182,6 +179,13 @@ public class MachineScreenHandlers {
             return null;
         }
 
+        @Override
+        protected void readExtraUpdates(PacketByteBuf buf) {
+            for (int index; (index = buf.readVarInt()) != 0;) {
+                components.get(index - 1).read(buf);
+            }
+        }
+
         @Override
         public boolean canUse(PlayerEntity player) {
             return true;
@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.machines.blockentities;
 
+import aztech.modern_industrialization.inventory.ChangeListener;
 import aztech.modern_industrialization.inventory.MIInventory;
 import aztech.modern_industrialization.machines.BEP;
 import aztech.modern_industrialization.machines.MachineBlockEntity;
@@ -58,9 +59,10 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
         this.tier = tier;
         this.isActiveComponent = new IsActiveComponent();
         registerClientComponent(new AutoExtract.Server(orientation));
-        registerClientComponent(new ProgressBar.Server(progressBarParams, crafter::getProgress));
+        registerClientComponent(new ProgressBar.Server(progressBarParams, crafter::getProgress, () -> world.getTime()));
         registerClientComponent(new ReiSlotLocking.Server(crafter::lockRecipe, () -> true));
         this.registerComponents(crafter, this.inventory, orientation, isActiveComponent);
+        this.inventory.inventory.addListener(inventoryListener, null);
     }
 
     private final MachineInventoryComponent inventory;
@@ -71,6 +73,19 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
     protected final MachineTier tier;
     protected IsActiveComponent isActiveComponent;
 
+    private boolean inventoryChanged = false;
+    private final ChangeListener inventoryListener = new ChangeListener() {
+        @Override
+        protected void onChange() {
+            inventoryChanged = true;
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            return true;
+        }
+    };
+
     @Override
     public MachineRecipeType recipeType() {
         return type;
@@ -86,6 +101,14 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
         return tier.getMaxEu();
     }
 
+    /**
+     * Return whether components that are not tracked by the inventory, such as
+     * energy, changed since the last tick.
+     */
+    protected boolean checkComponentsChanged() {
+        return false;
+    }
+
     @Override
     public void tick() {
         if (!world.isClient) {
@@ -100,7 +123,12 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
             if (orientation.extractFluids) {
                 inventory.inventory.autoExtractFluids(world, pos, orientation.outputDirection);
             }
-            markDirty();
+            boolean crafterChanged = crafter.checkAndResetChanged();
+            boolean componentsChanged = checkComponentsChanged();
+            if (crafterChanged || inventoryChanged || componentsChanged) {
+                inventoryChanged = false;
+                markDirty();
+            }
         }
     }
 
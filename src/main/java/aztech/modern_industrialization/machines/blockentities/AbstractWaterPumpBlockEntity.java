@@ -58,7 +58,7 @@ public abstract class AbstractWaterPumpBlockEntity extends MachineBlockEntity im
         orientation = new OrientationComponent(new OrientationComponent.Params(true, false, false));
 
         isActiveComponent = new IsActiveComponent();
-        registerClientComponent(new ProgressBar.Server(PROGRESS_BAR, () -> (float) pumpingTicks / OPERATION_TICKS));
+        registerClientComponent(new ProgressBar.Server(PROGRESS_BAR, () -> (float) pumpingTicks / OPERATION_TICKS, () -> world.getTime()));
         this.registerComponents(orientation, isActiveComponent, new IComponent() {
             @Override
             public void writeNbt(NbtCompound tag) {
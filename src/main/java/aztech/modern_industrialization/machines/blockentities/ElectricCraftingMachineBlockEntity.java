@@ -54,7 +54,7 @@ public class ElectricCraftingMachineBlockEntity extends AbstractCraftingMachineB
         this.upgrades = new UpgradeComponent();
         this.energy = new EnergyComponent(casing::getEuCapacity);
         this.insertable = energy.buildInsertable(cableTier -> this.casing.canInsertEu(cableTier));
-        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity));
+        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity, () -> world.getTime()));
         registerClientComponent(new RecipeEfficiencyBar.Server(efficiencyBarParams, crafter));
         this.registerComponents(energy, casing, upgrades);
     }
@@ -69,6 +69,11 @@ public class ElectricCraftingMachineBlockEntity extends AbstractCraftingMachineB
         return energy.consumeEu(max, simulation);
     }
 
+    @Override
+    protected boolean checkComponentsChanged() {
+        return energy.checkAndResetChanged();
+    }
+
     @Override
     protected MachineModelClientData getModelData() {
         MachineModelClientData data = new MachineModelClientData(casing.getCasing());
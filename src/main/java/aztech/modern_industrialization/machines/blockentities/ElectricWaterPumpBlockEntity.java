@@ -48,7 +48,7 @@ public class ElectricWaterPumpBlockEntity extends AbstractWaterPumpBlockEntity {
                 new SlotPositions.Builder().addSlot(OUTPUT_SLOT_X, OUTPUT_SLOT_Y).build());
         this.energy = new EnergyComponent(3200);
         this.insertable = energy.buildInsertable(tier -> tier == CableTier.LV);
-        registerClientComponent(new EnergyBar.Server(new EnergyBar.Parameters(18, 32), energy::getEu, energy::getCapacity));
+        registerClientComponent(new EnergyBar.Server(new EnergyBar.Parameters(18, 32), energy::getEu, energy::getCapacity, () -> world.getTime()));
         this.registerComponents(energy);
         this.registerComponents(inventory);
     }
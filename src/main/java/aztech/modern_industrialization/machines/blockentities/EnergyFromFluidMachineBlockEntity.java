@@ -75,7 +75,7 @@ public class EnergyFromFluidMachineBlockEntity extends MachineBlockEntity implem
         this.energy = new EnergyComponent(energyCapacity);
         this.extractable = energy.buildExtractable((CableTier tier) -> tier == outputTier);
         EnergyBar.Parameters energyBarParams = new EnergyBar.Parameters(76, 39);
-        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity));
+        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity, () -> world.getTime()));
         this.orientation = new OrientationComponent(new OrientationComponent.Params(true, false, false));
         this.isActiveComponent = new IsActiveComponent();
 
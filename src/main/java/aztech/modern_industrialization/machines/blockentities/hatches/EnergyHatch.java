@@ -49,7 +49,7 @@ public class EnergyHatch extends HatchBlockEntity {
         insertable = energy.buildInsertable((CableTier tier2) -> tier2 == tier);
         extractable = energy.buildExtractable((CableTier tier2) -> tier2 == tier);
         EnergyBar.Parameters energyBarParams = new EnergyBar.Parameters(76, 39);
-        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity));
+        registerClientComponent(new EnergyBar.Server(energyBarParams, energy::getEu, energy::getCapacity, () -> world.getTime()));
 
         this.registerComponents(energy);
     }
@@ -70,6 +70,11 @@ public class EnergyHatch extends HatchBlockEntity {
         return false;
     }
 
+    @Override
+    protected boolean checkComponentsChanged() {
+        return energy.checkAndResetChanged();
+    }
+
     @Override
     public MIInventory getInventory() {
         return MIInventory.EMPTY;
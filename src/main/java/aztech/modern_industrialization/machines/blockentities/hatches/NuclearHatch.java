@@ -79,7 +79,7 @@ public class NuclearHatch extends HatchBlockEntity {
 
         registerComponents(inventory, nuclearReactorComponent);
         TemperatureBar.Parameters temperatureParams = new TemperatureBar.Parameters(43, 63, MAX_TEMPERATURE);
-        registerClientComponent(new TemperatureBar.Server(temperatureParams, () -> (int) nuclearReactorComponent.getTemperature()));
+        registerClientComponent(new TemperatureBar.Server(temperatureParams, nuclearReactorComponent::getTemperature, () -> world.getTime()));
     }
 
     @Override
@@ -97,6 +97,12 @@ public class NuclearHatch extends HatchBlockEntity {
         return inventory;
     }
 
+    @Override
+    protected boolean checkComponentsChanged() {
+        // The temperature is also changed by the reactor
+        return nuclearReactorComponent.checkAndResetChanged();
+    }
+
     @Override
     public final void tick() {
         super.tick();
@@ -138,9 +138,12 @@ public abstract class AbstractCraftingMultiblockBlockEntity extends MultiblockMa
             shapeMatcher.rematch(world);
 
             if (shapeMatcher.isMatchSuccessful()) {
-                inventory.rebuild(shapeMatcher);
+                if (shapeMatcher.haveHatchesChanged()) {
+                    inventory.rebuild(shapeMatcher);
+                    crafter.resetListeners();
 
-                onSuccessfulMatch(shapeMatcher);
+                    onSuccessfulMatch(shapeMatcher);
+                }
                 shapeValid.shapeValid = true;
 
                 // If there was an active recipe, we have to make sure the output fits, and lock
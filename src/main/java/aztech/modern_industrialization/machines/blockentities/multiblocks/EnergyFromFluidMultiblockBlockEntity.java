@@ -150,9 +150,11 @@ public class EnergyFromFluidMultiblockBlockEntity extends MultiblockMachineBlock
             shapeMatcher.rematch(world);
 
             if (shapeMatcher.isMatchSuccessful()) {
-                inventory.rebuild(shapeMatcher);
+                if (shapeMatcher.haveHatchesChanged()) {
+                    inventory.rebuild(shapeMatcher);
 
-                onSuccessfulMatch(shapeMatcher);
+                    onSuccessfulMatch(shapeMatcher);
+                }
                 shapeValid.shapeValid = true;
                 allowNormalOperation = true;
             }
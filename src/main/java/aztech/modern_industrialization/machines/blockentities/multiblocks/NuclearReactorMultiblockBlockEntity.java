@@ -27,6 +27,8 @@ import static aztech.modern_industrialization.machines.blockentities.hatches.Nuc
 
 import aztech.modern_industrialization.MIBlock;
 import aztech.modern_industrialization.compat.rei.machines.ReiMachineRecipes;
+import aztech.modern_industrialization.inventory.ChangeListener;
+import aztech.modern_industrialization.inventory.ConfigurableItemStack;
 import aztech.modern_industrialization.inventory.MIInventory;
 import aztech.modern_industrialization.machines.BEP;
 import aztech.modern_industrialization.machines.blockentities.hatches.NuclearHatch;
@@ -39,14 +41,12 @@ import aztech.modern_industrialization.machines.models.MachineModelClientData;
 import aztech.modern_industrialization.machines.multiblocks.*;
 import aztech.modern_industrialization.nuclear.INuclearGrid;
 import aztech.modern_industrialization.nuclear.NuclearComponent;
-import aztech.modern_industrialization.nuclear.NuclearFuel;
-import aztech.modern_industrialization.nuclear.NuclearGridHelper;
+import aztech.modern_industrialization.nuclear.NuclearGridSimulation;
 import aztech.modern_industrialization.util.Tickable;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemKey;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.Direction;
@@ -64,7 +64,22 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
     private final IsActiveComponent isActive;
     private ShapeMatcher shapeMatcher;
 
-    private INuclearGrid nuclearGrid;
+    private NuclearGridSimulation nuclearSimulation;
+    private boolean writingBack = false;
+    private Object listenerToken = null;
+    private final ChangeListener listener = new ChangeListener() {
+        @Override
+        protected void onChange() {
+            if (!writingBack && nuclearSimulation != null) {
+                nuclearSimulation.invalidateComponents();
+            }
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            return token == listenerToken;
+        }
+    };
 
     public NuclearReactorMultiblockBlockEntity(BEP bep) {
         super(bep, new MachineGuiParameters.Builder("nuclear_reactor", false).backgroundHeight(256).build(),
@@ -109,7 +124,7 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
         if (!world.isClient) {
             link();
             if (shapeValid.shapeValid) {
-                NuclearGridHelper.simulateNuclearTick(nuclearGrid);
+                nuclearSimulation.tick();
             }
         }
     }
@@ -143,27 +158,7 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
             hatchesGrid[x][y] = (NuclearHatch) hatch;
         }
 
-        nuclearGrid = new INuclearGrid() {
-
-            public ItemStack getNuclearComponent(int x, int y) {
-                if (hatchesGrid[x][y] != null) {
-                    if (!hatchesGrid[x][y].isFluid) {
-                        ItemStack itemStack = hatchesGrid[x][y].getInventory().getItemStacks().get(0).resource().toStack();
-                        if (!itemStack.isEmpty() && itemStack.getItem() instanceof NuclearComponent) {
-                            return itemStack;
-                        }
-                    }
-                }
-                return null;
-            }
-
-            public ItemStack getNuclearFuel(int x, int y) {
-                ItemStack component = getNuclearComponent(x, y);
-                if (component != null && component.getItem() instanceof NuclearFuel) {
-                    return component;
-                }
-                return null;
-            }
+        INuclearGrid nuclearGrid = new INuclearGrid() {
 
             @Override
             public int getSizeX() {
@@ -176,93 +171,59 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
             }
 
             @Override
-            public boolean isFuel(int x, int y) {
-                return getNuclearFuel(x, y) != null;
-            }
-
-            @Override
-            public double sendNeutron(int x, int y, int neutron) {
-                ItemStack nuclearFuelStack = getNuclearFuel(x, y);
-                if (nuclearFuelStack != null) {
-                    NuclearFuel fuel = (NuclearFuel) nuclearFuelStack.getItem();
-                    NbtCompound tag = nuclearFuelStack.getOrCreateTag();
-                    int desRem = tag.contains("desRem") ? tag.getInt("desRem") : fuel.desintegrationMax;
-                    int des = Math.min(neutron * fuel.desintegrationByNeutron, desRem);
-                    hatchesGrid[x][y].nuclearReactorComponent
-                            .increaseTemperature(des * (double) fuel.euByDesintegration / NuclearHatch.EU_PER_DEGREE);
-                    tag.putInt("desRem", desRem - des);
-                    hatchesGrid[x][y].getInventory().getItemStacks().get(0).setKey(ItemKey.of(nuclearFuelStack));
-                    return des * fuel.neutronByDesintegration;
-
-                }
-
-                return 0;
+            public boolean ok(int x, int y) {
+                return gridLayout[activeShape.getActiveShapeIndex()][x][y];
             }
 
             @Override
-            public double getFracDiffusedNeutron(int x, int y) {
-                ItemStack stack = getNuclearComponent(x, y);
-                if (stack != null) {
-                    NuclearComponent nuclearComponent = (NuclearComponent) stack.getItem();
-                    return 1.0 - nuclearComponent.neutronBehaviour.getNeutronAbs();
-                }
-                return 0;
+            public boolean hasHatch(int x, int y) {
+                return hatchesGrid[x][y] != null;
             }
 
             @Override
-            public double getNeutronDiffusionAnisotropy(int x, int y, int angle) {
-                ItemStack stack = getNuclearComponent(x, y);
-                if (stack != null) {
-                    NuclearComponent nuclearComponent = (NuclearComponent) stack.getItem();
-                    return nuclearComponent.neutronBehaviour.getNeutronDiff(angle);
+            public ItemStack getNuclearComponent(int x, int y) {
+                if (!hatchesGrid[x][y].isFluid) {
+                    ItemStack itemStack = hatchesGrid[x][y].getInventory().getItemStacks().get(0).resource().toStack();
+                    if (!itemStack.isEmpty() && itemStack.getItem() instanceof NuclearComponent) {
+                        return itemStack;
+                    }
                 }
-                return angle == 2 ? 1.0 : 0;
+                return null;
             }
 
             @Override
             public double getTemperature(int x, int y) {
-                if (hatchesGrid[x][y] != null) {
-                    return hatchesGrid[x][y].nuclearReactorComponent.getTemperature();
-                }
-                return 0;
+                return hatchesGrid[x][y].nuclearReactorComponent.getTemperature();
             }
 
             @Override
-            public boolean ok(int x, int y) {
-                if (x >= 0 && y >= 0 & x < getSizeX() & y < getSizeY()) {
-                    return gridLayout[activeShape.getActiveShapeIndex()][x][y];
-                }
-                return false;
-            }
-
-            @Override
-            public double getHeatTransferCoeff(int x, int y) {
-                if (hatchesGrid[x][y] == null) {
-                    return 0;
-                } else {
-                    ItemStack stack = getNuclearComponent(x, y);
-                    if (stack != null) {
-                        return BASE_HEAT_CONDUCTION + ((NuclearComponent) stack.getItem()).heatConduction;
-                    } else {
-                        return BASE_HEAT_CONDUCTION;
-                    }
-                }
+            public double getMaxTemperature(int x, int y) {
+                return hatchesGrid[x][y].nuclearReactorComponent.temperatureMax;
             }
 
             @Override
             public void setTemperature(int x, int y, double temp) {
-                if (hatchesGrid[x][y] != null) {
-                    hatchesGrid[x][y].nuclearReactorComponent.setTemperature(temp);
-                }
-
+                hatchesGrid[x][y].nuclearReactorComponent.setTemperature(temp);
             }
 
             @Override
-            public void tick(int x, int y) {
-
+            public void setRemainingDesintegrations(int x, int y, int desRem) {
+                ConfigurableItemStack stack = hatchesGrid[x][y].getInventory().getItemStacks().get(0);
+                ItemStack nuclearFuelStack = stack.resource().toStack();
+                nuclearFuelStack.getOrCreateTag().putInt("desRem", desRem);
+                // Don't read the components again because of our own change
+                writingBack = true;
+                stack.setKey(ItemKey.of(nuclearFuelStack));
+                writingBack = false;
             }
         };
+        nuclearSimulation = new NuclearGridSimulation(nuclearGrid);
 
+        // Read the components again when the content of a hatch changes
+        listenerToken = new Object();
+        for (HatchBlockEntity hatch : shapeMatcher.getMatchedHatches()) {
+            listener.listenAll(hatch.getInventory().getItemStacks(), listenerToken);
+        }
     }
 
     @Override
@@ -277,12 +238,16 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
         }
         if (shapeMatcher.needsRematch()) {
             shapeValid.shapeValid = false;
-            nuclearGrid = null;
             shapeMatcher.rematch(world);
 
             if (shapeMatcher.isMatchSuccessful()) {
                 shapeValid.shapeValid = true;
-                onSuccessfulMatch(shapeMatcher);
+                if (shapeMatcher.haveHatchesChanged()) {
+                    onSuccessfulMatch(shapeMatcher);
+                }
+            } else {
+                nuclearSimulation = null;
+                listenerToken = null;
             }
 
             if (shapeValid.update()) {
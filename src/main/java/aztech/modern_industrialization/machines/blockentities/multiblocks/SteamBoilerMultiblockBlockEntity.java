@@ -62,8 +62,8 @@ public class SteamBoilerMultiblockBlockEntity extends MultiblockMachineBlockEnti
         steamHeater = new SteamHeaterComponent(2500, maxEuProduction, maxEuProduction / 32, !highPressure, highPressure);
         fuelBurning = new FuelBurningComponent(steamHeater, 2);
 
-        registerClientComponent(new ProgressBar.Server(PROGRESS_BAR, () -> (float) fuelBurning.getBurningProgress()));
-        registerClientComponent(new TemperatureBar.Server(TEMPERATURE_BAR, () -> (int) steamHeater.getTemperature()));
+        registerClientComponent(new ProgressBar.Server(PROGRESS_BAR, () -> (float) fuelBurning.getBurningProgress(), () -> world.getTime()));
+        registerClientComponent(new TemperatureBar.Server(TEMPERATURE_BAR, steamHeater::getTemperature, () -> world.getTime()));
 
         this.registerComponents(isActiveComponent, steamHeater, fuelBurning);
 
@@ -79,7 +79,9 @@ public class SteamBoilerMultiblockBlockEntity extends MultiblockMachineBlockEnti
             shapeMatcher.rematch(world);
 
             if (shapeMatcher.isMatchSuccessful()) {
-                inventory.rebuild(shapeMatcher);
+                if (shapeMatcher.haveHatchesChanged()) {
+                    inventory.rebuild(shapeMatcher);
+                }
                 shapeValid.shapeValid = true;
             }
 
@@ -26,8 +26,10 @@ package aztech.modern_industrialization.machines.components;
 import static aztech.modern_industrialization.util.Simulation.ACT;
 import static aztech.modern_industrialization.util.Simulation.SIMULATE;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.inventory.AbstractConfigurableStack;
+import aztech.modern_industrialization.inventory.ChangeListener;
 import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
 import aztech.modern_industrialization.inventory.ConfigurableItemStack;
 import aztech.modern_industrialization.machines.IComponent;
@@ -36,10 +38,10 @@ import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
 import aztech.modern_industrialization.util.Simulation;
 import com.google.common.base.Preconditions;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemKey;
-import java.util.ArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.minecraft.entity.player.PlayerInventory;
@@ -47,6 +49,7 @@ import net.minecraft.fluid.Fluid;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.recipe.RecipeManager;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
@@ -87,6 +90,14 @@ public class CrafterComponent implements IComponent.ServerOnly {
         default int getMaxFluidOutputs() {
             return Integer.MAX_VALUE;
         }
+
+        /**
+         * Maximum number of copies of a recipe that can be processed at the same time,
+         * once a single copy completes in one tick.
+         */
+        default int getMaxBatchSize() {
+            return MIConfig.getConfig().maxCrafterBatchSize;
+        }
     }
 
     private final Inventory inventory;
@@ -94,6 +105,8 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     private MachineRecipe activeRecipe = null;
     private Identifier delayedActiveRecipe;
+    // Number of copies of the active recipe that are processed together
+    private int batchSize = 1;
 
     private long usedEnergy;
     private long recipeEnergy;
@@ -104,6 +117,31 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     private long previousBaseEu = -1;
     private long previousMaxEu = -1;
+    // Whether the saved state changed since the last call to checkAndResetChanged
+    private boolean changed = false;
+
+    /*
+     * Sleep mode: when no recipe can be started, the crafter stops scanning the
+     * recipes until one of its slots changes. The other conditions that can allow a
+     * recipe to start (available energy, max recipe eu, reloaded recipes) are cheap
+     * to check, so they are checked every tick.
+     */
+    private boolean sleeping = false;
+    private long sleepingMaxEu;
+    private RecipeManager sleepingRecipeManager;
+    // Registrations with another token are stale, and removed lazily by the stacks
+    private Object listenerToken = null;
+    private final ChangeListener listener = new ChangeListener() {
+        @Override
+        protected void onChange() {
+            sleeping = false;
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            return token == listenerToken;
+        }
+    };
 
     public float getProgress() {
         return (float) usedEnergy / recipeEnergy;
@@ -126,11 +164,28 @@ public class CrafterComponent implements IComponent.ServerOnly {
     }
 
     public void decreaseEfficiencyTicks() {
-        efficiencyTicks = Math.max(efficiencyTicks - 1, 0);
+        if (efficiencyTicks > 0) {
+            efficiencyTicks--;
+            changed = true;
+        }
     }
 
     public void increaseEfficiencyTicks(int increment) {
-        efficiencyTicks = Math.min(efficiencyTicks + increment, maxEfficiencyTicks);
+        int newEfficiencyTicks = Math.min(efficiencyTicks + increment, maxEfficiencyTicks);
+        if (newEfficiencyTicks != efficiencyTicks) {
+            efficiencyTicks = newEfficiencyTicks;
+            changed = true;
+        }
+    }
+
+    /**
+     * Return whether the active recipe, its progress or the efficiency changed
+     * since the last call.
+     */
+    public boolean checkAndResetChanged() {
+        boolean result = changed;
+        changed = false;
+        return result;
     }
 
     public long getCurrentRecipeEu() {
@@ -143,6 +198,51 @@ public class CrafterComponent implements IComponent.ServerOnly {
         return activeRecipe.eu;
     }
 
+    /**
+     * Return the EU/t of the active recipe before the efficiency overclock.
+     */
+    public long getOverclockBaseEu() {
+        Preconditions.checkArgument(hasActiveRecipe());
+        return Math.max(behavior.getBaseRecipeEu(), activeRecipe.eu);
+    }
+
+    public long getRecipeTotalEu() {
+        Preconditions.checkArgument(hasActiveRecipe());
+        return activeRecipe.getTotalEu();
+    }
+
+    public int getBatchSize() {
+        Preconditions.checkArgument(hasActiveRecipe());
+        return batchSize;
+    }
+
+    /**
+     * Return true if the crafter could not start a recipe, and nothing that could
+     * allow it to start one has changed since.
+     */
+    public boolean isSleeping() {
+        return sleeping && sleepingMaxEu == behavior.getMaxRecipeEu() && sleepingRecipeManager == behavior.getCrafterWorld().getRecipeManager();
+    }
+
+    /**
+     * Must be called when the stacks of the inventory are replaced, for example
+     * when the hatches of a multiblock change.
+     */
+    public void resetListeners() {
+        listenerToken = null;
+        sleeping = false;
+    }
+
+    private void registerListeners() {
+        if (listenerToken == null) {
+            listenerToken = new Object();
+            listener.listenAll(inventory.getItemInputs(), listenerToken);
+            listener.listenAll(inventory.getItemOutputs(), listenerToken);
+            listener.listenAll(inventory.getFluidInputs(), listenerToken);
+            listener.listenAll(inventory.getFluidOutputs(), listenerToken);
+        }
+    }
+
     /**
      * Perform a crafter tick, and return whether the crafter is active after the
      * tick.
@@ -154,13 +254,27 @@ public class CrafterComponent implements IComponent.ServerOnly {
         boolean isActive;
 
         loadDelayedActiveRecipe();
+        registerListeners();
+
+        MachineRecipe previousRecipe = activeRecipe;
+        long previousUsedEnergy = usedEnergy;
+        long previousRecipeEnergy = recipeEnergy;
+        int previousEfficiencyTicks = efficiencyTicks;
+        int previousMaxEfficiencyTicks = maxEfficiencyTicks;
+        int previousBatchSize = batchSize;
 
         // START RECIPE IF NECESSARY
         // usedEnergy == 0 means that no recipe is currently started
         boolean recipeStarted = false;
         if (usedEnergy == 0) {
-            if (behavior.consumeEu(1, SIMULATE) == 1) {
+            if (behavior.consumeEu(1, SIMULATE) == 1 && !isSleeping()) {
                 recipeStarted = updateActiveRecipe();
+                // Only sleep if all the recipes were tried
+                if (!recipeStarted && efficiencyTicks == 0) {
+                    sleeping = true;
+                    sleepingMaxEu = behavior.getMaxRecipeEu();
+                    sleepingRecipeManager = behavior.getCrafterWorld().getRecipeManager();
+                }
             }
         }
 
@@ -168,14 +282,14 @@ public class CrafterComponent implements IComponent.ServerOnly {
         long eu = 0;
         boolean finishedRecipe = false; // whether the recipe finished this tick
         if (activeRecipe != null && (usedEnergy > 0 || recipeStarted)) {
-            recipeMaxEu = getRecipeMaxEu(activeRecipe.eu, recipeEnergy, efficiencyTicks);
+            recipeMaxEu = batchSize * getRecipeMaxEu(activeRecipe.eu, activeRecipe.getTotalEu(), efficiencyTicks);
             eu = behavior.consumeEu(Math.min(recipeMaxEu, recipeEnergy - usedEnergy), ACT);
             isActive = eu > 0;
             usedEnergy += eu;
 
             if (usedEnergy == recipeEnergy) {
-                putItemOutputs(activeRecipe, false, false);
-                putFluidOutputs(activeRecipe, false, false);
+                putItemOutputs(activeRecipe, false, false, batchSize);
+                putFluidOutputs(activeRecipe, false, false, batchSize);
                 clearLocks();
                 usedEnergy = 0;
                 finishedRecipe = true;
@@ -212,6 +326,9 @@ public class CrafterComponent implements IComponent.ServerOnly {
             activeRecipe = null;
         }
 
+        changed |= activeRecipe != previousRecipe || usedEnergy != previousUsedEnergy || recipeEnergy != previousRecipeEnergy
+                || efficiencyTicks != previousEfficiencyTicks || maxEfficiencyTicks != previousMaxEfficiencyTicks || batchSize != previousBatchSize;
+
         return isActive;
     }
 
@@ -225,10 +342,10 @@ public class CrafterComponent implements IComponent.ServerOnly {
         loadDelayedActiveRecipe();
 
         if (activeRecipe != null) {
-            if (putItemOutputs(activeRecipe, true, false) && putFluidOutputs(activeRecipe, true, false)) {
+            if (putItemOutputs(activeRecipe, true, false, batchSize) && putFluidOutputs(activeRecipe, true, false, batchSize)) {
                 // Relock stacks
-                putItemOutputs(activeRecipe, true, true);
-                putFluidOutputs(activeRecipe, true, true);
+                putItemOutputs(activeRecipe, true, true, batchSize);
+                putFluidOutputs(activeRecipe, true, true, batchSize);
             } else {
                 return false;
             }
@@ -245,16 +362,20 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 // to allow the machine to resume processing.
                 efficiencyTicks = 0;
                 usedEnergy = 0;
+                batchSize = 1;
             }
         }
     }
 
     private boolean updateActiveRecipe() {
+        // Read once, the default reads the config which is synchronized
+        int maxBatchSize = behavior.getMaxBatchSize();
         // Only then can we run the iteration over the recipes
         for (MachineRecipe recipe : getRecipes()) {
             if (behavior.banRecipe(recipe))
                 continue;
-            if (tryStartRecipe(recipe)) {
+            int startedCopies = tryStartRecipe(recipe, getMaxBatchSize(recipe, maxBatchSize));
+            if (startedCopies > 0) {
                 // Make sure we recalculate the max efficiency ticks if the recipe changes or if
                 // the efficiency has reached 0 (the latter is to recalculate the efficiency for
                 // 0.3.6 worlds without having to break and replace the machines)
@@ -262,46 +383,180 @@ public class CrafterComponent implements IComponent.ServerOnly {
                     maxEfficiencyTicks = getRecipeMaxEfficiencyTicks(recipe);
                 }
                 activeRecipe = recipe;
+                batchSize = startedCopies;
                 usedEnergy = 0;
-                recipeEnergy = recipe.getTotalEu();
-                recipeMaxEu = getRecipeMaxEu(recipe.eu, recipeEnergy, efficiencyTicks);
+                recipeEnergy = recipe.getTotalEu() * startedCopies;
+                recipeMaxEu = startedCopies * getRecipeMaxEu(recipe.eu, recipe.getTotalEu(), efficiencyTicks);
                 return true;
             }
         }
         return false;
     }
 
+    // Reused by getRecipes() to avoid allocating new sets every time
+    private final Set<Item> presentItems = new ReferenceOpenHashSet<>();
+    private final Set<Fluid> presentFluids = new ReferenceOpenHashSet<>();
+
     private Iterable<MachineRecipe> getRecipes() {
         if (efficiencyTicks > 0) {
             return Collections.singletonList(activeRecipe);
         } else {
             ServerWorld serverWorld = (ServerWorld) behavior.getCrafterWorld();
             MachineRecipeType recipeType = behavior.recipeType();
-            List<MachineRecipe> recipes = new ArrayList<>(recipeType.getFluidOnlyRecipes(serverWorld));
+            Set<Item> items = presentItems;
+            items.clear();
             for (ConfigurableItemStack stack : inventory.getItemInputs()) {
-                if (!stack.isEmpty()) {
-                    recipes.addAll(recipeType.getMatchingRecipes(serverWorld, stack.resource().getItem()));
+                if (stack.amount() > 0) {
+                    items.add(stack.resource().getItem());
                 }
             }
-            return recipes;
+            Set<Fluid> fluids = presentFluids;
+            fluids.clear();
+            for (ConfigurableFluidStack stack : inventory.getFluidInputs()) {
+                if (stack.amount() > 0) {
+                    fluids.add(stack.resource().getFluid());
+                }
+            }
+            return recipeType.getMatchingRecipes(serverWorld, items, fluids);
+        }
+    }
+
+    /**
+     * Return how many copies of a recipe may be started together. Batches are only
+     * allowed when a single copy already completes in one tick, and as long as the
+     * whole batch fits in the max recipe EU/t and in the available energy.
+     */
+    private int getMaxBatchSize(MachineRecipe recipe, int maxBatchSize) {
+        long totalEu = recipe.getTotalEu();
+        if (totalEu <= 0 || getRecipeMaxEu(recipe.eu, totalEu, efficiencyTicks) < totalEu) {
+            return 1;
+        }
+        long availableEu = behavior.consumeEu(behavior.getMaxRecipeEu(), SIMULATE);
+        return (int) Math.max(1, Math.min(maxBatchSize, availableEu / totalEu));
+    }
+
+    /**
+     * Try to start up to {@code maxCopies} copies of a recipe. Return the number of
+     * started copies. If 0, nothing was changed.
+     */
+    private int tryStartRecipe(MachineRecipe recipe, int maxCopies) {
+        if (!canStartRecipe(recipe, 1, null)) {
+            return 0;
         }
+        // Find the largest batch for which all the inputs and output space are
+        // available. Probabilistic inputs only need one copy's worth, so that the
+        // result doesn't depend on the rolls.
+        int copies = findMaxCopies(recipe, maxCopies, null);
+        // Then roll the probabilistic inputs of every copy, and drop the last copies
+        // if the rolled inputs are not available. A single copy is always possible.
+        int[][] rolledInputs = rollInputs(recipe, copies);
+        if (rolledInputs != null) {
+            copies = findMaxCopies(recipe, copies, rolledInputs);
+        }
+        setInputCopies(recipe, copies, rolledInputs);
+        takeItemInputs(recipe, false);
+        takeFluidInputs(recipe, false);
+        putItemOutputs(recipe, true, true, copies);
+        putFluidOutputs(recipe, true, true, copies);
+        return copies;
     }
 
     /**
-     * Try to start a recipe. Return true if success, false otherwise. If false,
-     * nothing was changed.
+     * Return the largest number of copies, between 1 and {@code maxCopies}, that
+     * can start. If some number of copies can start, any smaller number can too.
      */
-    private boolean tryStartRecipe(MachineRecipe recipe) {
-        if (takeItemInputs(recipe, true) && takeFluidInputs(recipe, true) && putItemOutputs(recipe, true, false)
-                && putFluidOutputs(recipe, true, false)) {
-            takeItemInputs(recipe, false);
-            takeFluidInputs(recipe, false);
-            putItemOutputs(recipe, true, true);
-            putFluidOutputs(recipe, true, true);
-            return true;
+    private int findMaxCopies(MachineRecipe recipe, int maxCopies, int[][] rolledInputs) {
+        int copies = 1;
+        int maxPossible = maxCopies;
+        while (copies < maxPossible) {
+            int mid = (copies + maxPossible + 1) >>> 1;
+            if (canStartRecipe(recipe, mid, rolledInputs)) {
+                copies = mid;
+            } else {
+                maxPossible = mid - 1;
+            }
+        }
+        return copies;
+    }
+
+    private boolean canStartRecipe(MachineRecipe recipe, int copies, int[][] rolledInputs) {
+        setInputCopies(recipe, copies, rolledInputs);
+        return takeItemInputs(recipe, true) && takeFluidInputs(recipe, true) && putItemOutputs(recipe, true, false, copies)
+                && putFluidOutputs(recipe, true, false, copies);
+    }
+
+    // How many copies of each item and fluid input are checked or taken
+    private int[] itemInputCopies = new int[0];
+    private int[] fluidInputCopies = new int[0];
+
+    /**
+     * Set how many copies of each input are checked or taken for a batch. Without
+     * rolls, probabilistic inputs need one copy's worth. With rolls, they need the
+     * copies that were rolled among the first copies of the batch.
+     */
+    private void setInputCopies(MachineRecipe recipe, int copies, int[][] rolledInputs) {
+        int itemInputs = recipe.itemInputs.size();
+        if (itemInputCopies.length < itemInputs) {
+            itemInputCopies = new int[itemInputs];
+        }
+        if (fluidInputCopies.length < recipe.fluidInputs.size()) {
+            fluidInputCopies = new int[recipe.fluidInputs.size()];
+        }
+        for (int j = 0; j < itemInputs; ++j) {
+            itemInputCopies[j] = getInputCopies(recipe.itemInputs.get(j).probability, copies, rolledInputs, j);
+        }
+        for (int j = 0; j < recipe.fluidInputs.size(); ++j) {
+            fluidInputCopies[j] = getInputCopies(recipe.fluidInputs.get(j).probability, copies, rolledInputs, itemInputs + j);
+        }
+    }
+
+    private static int getInputCopies(float probability, int copies, int[][] rolledInputs, int inputIndex) {
+        if (probability >= 1) {
+            return copies;
+        } else if (rolledInputs == null) {
+            return Math.min(copies, 1);
         } else {
-            return false;
+            return rolledInputs[inputIndex][copies];
+        }
+    }
+
+    /**
+     * Roll the probabilistic inputs of every copy independently. For every input,
+     * with the item inputs first, return how many of the first {@code n} copies
+     * use it at index {@code n}. Return null if no input is probabilistic.
+     */
+    private static int[][] rollInputs(MachineRecipe recipe, int copies) {
+        int itemInputs = recipe.itemInputs.size();
+        int inputs = itemInputs + recipe.fluidInputs.size();
+        int[][] rolledInputs = null;
+        for (int j = 0; j < inputs; ++j) {
+            float probability = j < itemInputs ? recipe.itemInputs.get(j).probability : recipe.fluidInputs.get(j - itemInputs).probability;
+            if (probability < 1) {
+                if (rolledInputs == null) {
+                    rolledInputs = new int[inputs][];
+                }
+                int[] usedCopies = new int[copies + 1];
+                for (int k = 0; k < copies; ++k) {
+                    usedCopies[k + 1] = usedCopies[k] + (ThreadLocalRandom.current().nextFloat() < probability ? 1 : 0);
+                }
+                rolledInputs[j] = usedCopies;
+            }
+        }
+        return rolledInputs;
+    }
+
+    /**
+     * Return for how many of the given copies a probabilistic output is produced.
+     * Every copy is rolled independently.
+     */
+    private static int rollCopies(float probability, int copies) {
+        int successes = 0;
+        for (int i = 0; i < copies; ++i) {
+            if (ThreadLocalRandom.current().nextFloat() < probability) {
+                successes++;
+            }
         }
+        return successes;
     }
 
     private static double getEfficiencyOverclock(int efficiencyTicks) {
@@ -310,7 +565,15 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     private long getRecipeMaxEu(long recipeEu, long totalEu, int efficiencyTicks) {
         long baseEu = Math.max(behavior.getBaseRecipeEu(), recipeEu);
-        return Math.min(totalEu, Math.min((int) Math.floor(baseEu * getEfficiencyOverclock(efficiencyTicks)), behavior.getMaxRecipeEu()));
+        return getOverclockedEu(baseEu, totalEu, efficiencyTicks, behavior.getMaxRecipeEu());
+    }
+
+    /**
+     * Return the EU/t of a recipe after the efficiency overclock. Also used by the
+     * client to compute the EU/t from the efficiency ticks.
+     */
+    public static long getOverclockedEu(long baseEu, long totalEu, int efficiencyTicks, long maxRecipeEu) {
+        return Math.min(totalEu, Math.min((int) Math.floor(baseEu * getEfficiencyOverclock(efficiencyTicks)), maxRecipeEu));
     }
 
     private int getRecipeMaxEfficiencyTicks(MachineRecipe recipe) {
@@ -333,9 +596,12 @@ public class CrafterComponent implements IComponent.ServerOnly {
         }
         tag.putInt("efficiencyTicks", this.efficiencyTicks);
         tag.putInt("maxEfficiencyTicks", this.maxEfficiencyTicks);
+        tag.putInt("batchSize", this.batchSize);
     }
 
     public void readNbt(NbtCompound tag) {
+        // The inventory might have replaced its stacks
+        resetListeners();
         this.usedEnergy = tag.getInt("usedEnergy");
         this.recipeEnergy = tag.getInt("recipeEnergy");
         this.recipeMaxEu = tag.getInt("recipeMaxEu");
@@ -346,28 +612,55 @@ public class CrafterComponent implements IComponent.ServerOnly {
         }
         this.efficiencyTicks = tag.getInt("efficiencyTicks");
         this.maxEfficiencyTicks = tag.getInt("maxEfficiencyTicks");
+        this.batchSize = tag.contains("batchSize") ? Math.max(1, tag.getInt("batchSize")) : 1;
+    }
+
+    /*
+     * Scratch buffers used to simulate recipe inputs and outputs against the slot
+     * amounts, without copying the stacks. They are reused across calls, and only
+     * reallocated when the number of slots grows (for example when a multiblock
+     * gains hatches).
+     */
+    private long[] simulatedAmounts = new long[0];
+    private Item[] simulatedItems = new Item[0];
+    private Item[] itemLocks = new Item[0];
+    private FluidKey[] simulatedFluids = new FluidKey[0];
+    private Fluid[] fluidLocks = new Fluid[0];
+
+    private void ensureScratchCapacity(int slots) {
+        if (simulatedAmounts.length < slots) {
+            simulatedAmounts = new long[slots];
+            simulatedItems = new Item[slots];
+            itemLocks = new Item[slots];
+            simulatedFluids = new FluidKey[slots];
+            fluidLocks = new Fluid[slots];
+        }
     }
 
     /**
-     * cachedItemCounts must be correct when this function is called, and are
-     * guaranteed to be correct after this call
+     * Take the item inputs of a recipe, or only check that they are available if
+     * simulating. The number of copies of each input is set by
+     * {@link #setInputCopies}. Nothing is modified when simulating.
      */
     private boolean takeItemInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableItemStack> baseList = inventory.getItemInputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+        List<ConfigurableItemStack> stacks = inventory.getItemInputs();
+        int size = stacks.size();
+        ensureScratchCapacity(size);
+        long[] amounts = simulatedAmounts;
+        for (int i = 0; i < size; ++i) {
+            amounts[i] = stacks.get(i).amount();
+        }
 
         boolean ok = true;
-        for (MachineRecipe.ItemInput input : recipe.itemInputs) {
-            if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
-                if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
-                    continue;
-                }
-            }
-            int remainingAmount = input.amount;
-            for (ConfigurableItemStack stack : stacks) {
-                if (stack.amount() > 0 && input.matches(stack.resource().toStack())) { // TODO: ItemStack creation slow?
-                    int taken = Math.min((int) stack.amount(), remainingAmount);
-                    stack.decrement(taken);
+        for (int j = 0; j < recipe.itemInputs.size(); ++j) {
+            MachineRecipe.ItemInput input = recipe.itemInputs.get(j);
+            int remainingAmount = input.amount * itemInputCopies[j];
+            if (remainingAmount == 0)
+                continue;
+            for (int i = 0; i < size; ++i) {
+                if (amounts[i] > 0 && input.matches(stacks.get(i).resource())) {
+                    int taken = (int) Math.min(amounts[i], remainingAmount);
+                    amounts[i] -= taken;
                     remainingAmount -= taken;
                     if (remainingAmount == 0)
                         break;
@@ -377,25 +670,41 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 ok = false;
         }
 
+        if (!simulate) {
+            for (int i = 0; i < size; ++i) {
+                ConfigurableItemStack stack = stacks.get(i);
+                if (stack.amount() != amounts[i]) {
+                    stack.setAmount(amounts[i]);
+                }
+            }
+        }
         return ok;
     }
 
+    /**
+     * Take the fluid inputs of a recipe, or only check that they are available if
+     * simulating. The number of copies of each input is set by
+     * {@link #setInputCopies}. Nothing is modified when simulating.
+     */
     protected boolean takeFluidInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidInputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+        List<ConfigurableFluidStack> stacks = inventory.getFluidInputs();
+        int size = stacks.size();
+        ensureScratchCapacity(size);
+        long[] amounts = simulatedAmounts;
+        for (int i = 0; i < size; ++i) {
+            amounts[i] = stacks.get(i).amount();
+        }
 
         boolean ok = true;
-        for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
-            if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
-                if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
-                    continue;
-                }
-            }
-            long remainingAmount = input.amount;
-            for (ConfigurableFluidStack stack : stacks) {
-                if (stack.resource().equals(FluidKey.of(input.fluid))) {
-                    long taken = Math.min(remainingAmount, stack.amount());
-                    stack.decrement(taken);
+        for (int j = 0; j < recipe.fluidInputs.size(); ++j) {
+            MachineRecipe.FluidInput input = recipe.fluidInputs.get(j);
+            long remainingAmount = input.amount * fluidInputCopies[j];
+            if (remainingAmount == 0)
+                continue;
+            for (int i = 0; i < size; ++i) {
+                if (amounts[i] > 0 && stacks.get(i).resource().getFluid() == input.fluid) {
+                    long taken = Math.min(remainingAmount, amounts[i]);
+                    amounts[i] -= taken;
                     remainingAmount -= taken;
                     if (remainingAmount == 0)
                         break;
@@ -404,54 +713,71 @@ public class CrafterComponent implements IComponent.ServerOnly {
             if (remainingAmount > 0)
                 ok = false;
         }
+
+        if (!simulate) {
+            for (int i = 0; i < size; ++i) {
+                ConfigurableFluidStack stack = stacks.get(i);
+                if (stack.amount() != amounts[i]) {
+                    stack.setAmount(amounts[i]);
+                }
+            }
+        }
         return ok;
     }
 
-    protected boolean putItemOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableItemStack> baseList = inventory.getItemOutputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
-
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Item> lockItems = new ArrayList<>();
+    /**
+     * Put the item outputs of some copies of a recipe, or only check that there is
+     * enough space for them if simulating. Nothing but the locks is modified when
+     * simulating.
+     */
+    protected boolean putItemOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock, int copies) {
+        List<ConfigurableItemStack> stacks = inventory.getItemOutputs();
+        int size = stacks.size();
+        ensureScratchCapacity(size);
+        long[] amounts = simulatedAmounts;
+        Item[] items = simulatedItems;
+        Item[] locks = itemLocks;
+        for (int i = 0; i < size; ++i) {
+            ConfigurableItemStack stack = stacks.get(i);
+            amounts[i] = stack.amount();
+            items[i] = stack.isEmpty() ? null : stack.resource().getItem();
+            locks[i] = null;
+        }
 
         boolean ok = true;
         for (MachineRecipe.ItemOutput output : recipe.itemOutputs) {
+            int usedCopies = copies;
             if (output.probability < 1) {
                 if (simulate)
                     continue; // don't check output space for probabilistic recipes
-                float randFloat = ThreadLocalRandom.current().nextFloat();
-                if (randFloat > output.probability)
-                    continue;
+                usedCopies = rollCopies(output.probability, copies);
             }
-            int remainingAmount = output.amount;
+            int remainingAmount = output.amount * usedCopies;
             // Try to insert in non-empty stacks or locked first, then also allow insertion
             // in empty stacks.
-            for (int loopRun = 0; loopRun < 2; loopRun++) {
-                int stackId = 0;
-                for (ConfigurableItemStack stack : stacks) {
-                    stackId++;
-                    ItemKey key = stack.resource();
-                    if (key.getItem() == output.item || key.isEmpty()) {
+            for (int loopRun = 0; loopRun < 2 && remainingAmount > 0; loopRun++) {
+                for (int i = 0; i < size; ++i) {
+                    ConfigurableItemStack stack = stacks.get(i);
+                    if (items[i] == output.item || items[i] == null) {
                         // If simulating, respect the adjusted capacity.
                         // If putting the output, don't respect the adjusted capacity in case it was
                         // reduced during the processing.
-                        int remainingCapacity = simulate ? (int) stack.getRemainingCapacityFor(ItemKey.of(output.item))
-                                : output.item.getMaxCount() - (int) stack.amount();
+                        int maxCount = output.item.getMaxCount();
+                        int remainingCapacity = (int) ((simulate ? Math.min(maxCount, stack.getAdjustedCapacity()) : maxCount) - amounts[i]);
                         int ins = Math.min(remainingAmount, remainingCapacity);
-                        if (key.isEmpty()) {
-                            if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1) && stack.isValid(new ItemStack(output.item))) {
-                                stack.setAmount(ins);
-                                stack.setKey(ItemKey.of(output.item));
+                        if (items[i] == null) {
+                            if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1) && stack.isResourceAllowedByLock(output.item)) {
+                                amounts[i] = ins;
+                                items[i] = output.item;
                             } else {
                                 ins = 0;
                             }
                         } else {
-                            stack.increment(ins);
+                            amounts[i] += ins;
                         }
                         remainingAmount -= ins;
                         if (ins > 0) {
-                            locksToToggle.add(stackId - 1);
-                            lockItems.add(output.item);
+                            locks[i] = output.item;
                         }
                         if (remainingAmount == 0)
                             break;
@@ -462,46 +788,67 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 ok = false;
         }
 
-        if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockItems.get(i));
+        for (int i = 0; i < size; ++i) {
+            ConfigurableItemStack stack = stacks.get(i);
+            if (!simulate && stack.amount() != amounts[i]) {
+                boolean wasEmpty = stack.isEmpty();
+                stack.setAmount(amounts[i]);
+                if (wasEmpty) {
+                    stack.setKey(ItemKey.of(items[i]));
+                }
+            }
+            if (toggleLock && locks[i] != null) {
+                stack.enableMachineLock(locks[i]);
             }
         }
         return ok;
     }
 
-    protected boolean putFluidOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidOutputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
-
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Fluid> lockFluids = new ArrayList<>();
+    /**
+     * Put the fluid outputs of some copies of a recipe, or only check that there is
+     * enough space for them if simulating. Nothing but the locks is modified when
+     * simulating.
+     */
+    protected boolean putFluidOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock, int copies) {
+        List<ConfigurableFluidStack> stacks = inventory.getFluidOutputs();
+        int size = stacks.size();
+        ensureScratchCapacity(size);
+        long[] amounts = simulatedAmounts;
+        FluidKey[] fluids = simulatedFluids;
+        Fluid[] locks = fluidLocks;
+        for (int i = 0; i < size; ++i) {
+            ConfigurableFluidStack stack = stacks.get(i);
+            amounts[i] = stack.amount();
+            fluids[i] = stack.resource();
+            locks[i] = null;
+        }
 
         boolean ok = true;
         for (int i = 0; i < Math.min(recipe.fluidOutputs.size(), behavior.getMaxFluidOutputs()); ++i) {
             MachineRecipe.FluidOutput output = recipe.fluidOutputs.get(i);
+            int usedCopies = copies;
             if (output.probability < 1) {
                 if (simulate)
                     continue; // don't check output space for probabilistic recipes
-                float randFloat = ThreadLocalRandom.current().nextFloat();
-                if (randFloat > output.probability)
-                    continue;
+                usedCopies = rollCopies(output.probability, copies);
             }
+            long outputAmount = output.amount * usedCopies;
+            if (outputAmount == 0)
+                continue;
+            FluidKey outputKey = FluidKey.of(output.fluid);
             // First, try to find a slot that contains the fluid. If we couldn't find one,
             // we insert in any stack
             outer: for (int tries = 0; tries < 2; ++tries) {
-                for (int j = 0; j < stacks.size(); j++) {
+                for (int j = 0; j < size; j++) {
                     ConfigurableFluidStack stack = stacks.get(j);
-                    FluidKey outputKey = FluidKey.of(output.fluid);
-                    if (stack.isResourceAllowedByLock(outputKey) && (tries == 1 || stack.resource().equals(outputKey))) {
-                        long inserted = Math.min(output.amount, stack.getRemainingSpace());
+                    if (stack.isResourceAllowedByLock(outputKey) && (tries == 1 || fluids[j].equals(outputKey))) {
+                        long inserted = Math.min(outputAmount, stack.getCapacity() - amounts[j]);
                         if (inserted > 0) {
-                            stack.setKey(outputKey);
-                            stack.increment(inserted);
-                            locksToToggle.add(j);
-                            lockFluids.add(output.fluid);
+                            fluids[j] = outputKey;
+                            amounts[j] += inserted;
+                            locks[j] = output.fluid;
                         }
-                        if (inserted < output.amount) {
+                        if (inserted < outputAmount) {
                             ok = false;
                         }
                         break outer;
@@ -513,9 +860,17 @@ public class CrafterComponent implements IComponent.ServerOnly {
             }
         }
 
-        if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockFluids.get(i));
+        for (int i = 0; i < size; ++i) {
+            ConfigurableFluidStack stack = stacks.get(i);
+            if (!simulate && stack.amount() != amounts[i]) {
+                // Keep the existing key if it is the same, including its NBT
+                if (!stack.resource().equals(fluids[i])) {
+                    stack.setKey(fluids[i]);
+                }
+                stack.setAmount(amounts[i]);
+            }
+            if (toggleLock && locks[i] != null) {
+                stack.enableMachineLock(locks[i]);
             }
         }
         return ok;
@@ -534,11 +889,9 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     public void lockRecipe(Identifier recipeId, PlayerInventory inventory) {
         // Find MachineRecipe
-        Optional<MachineRecipe> optionalMachineRecipe = behavior.recipeType().getRecipes((ServerWorld) behavior.getCrafterWorld()).stream()
-                .filter(recipe -> recipe.getId().equals(recipeId)).findFirst();
-        if (optionalMachineRecipe.isEmpty())
+        MachineRecipe recipe = behavior.recipeType().getRecipe((ServerWorld) behavior.getCrafterWorld(), recipeId);
+        if (recipe == null)
             return;
-        MachineRecipe recipe = optionalMachineRecipe.get();
         // ITEM INPUTS
         outer: for (MachineRecipe.ItemInput input : recipe.itemInputs) {
             for (ConfigurableItemStack stack : this.inventory.getItemInputs()) {
@@ -36,6 +36,7 @@ import net.minecraft.nbt.NbtCompound;
 public class EnergyComponent implements IComponent.ServerOnly {
     private long storedEu;
     private final Supplier<Long> capacity;
+    private boolean changed = false;
 
     public EnergyComponent(Supplier<Long> capacity) {
         this.capacity = capacity;
@@ -66,7 +67,20 @@ public class EnergyComponent implements IComponent.ServerOnly {
     }
 
     private void setEu(long eu) {
-        this.storedEu = Math.min(eu, capacity.get());
+        long newEu = Math.min(eu, capacity.get());
+        if (newEu != storedEu) {
+            storedEu = newEu;
+            changed = true;
+        }
+    }
+
+    /**
+     * Return whether the stored energy changed since the last call.
+     */
+    public boolean checkAndResetChanged() {
+        boolean result = changed;
+        changed = false;
+        return result;
     }
 
     public long consumeEu(long max, Simulation simulation) {
@@ -99,7 +113,6 @@ public class EnergyComponent implements IComponent.ServerOnly {
                 long inserted = Math.min(amount, capacity.get() - getEu());
                 if (simulation.isActing()) {
                     setEu(getEu() + inserted);
-                    // TODO: markDirty?
                 }
                 return inserted;
             }
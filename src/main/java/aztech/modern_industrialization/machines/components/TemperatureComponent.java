@@ -30,14 +30,27 @@ public class TemperatureComponent implements IComponent {
 
     private double temperature;
     public final double temperatureMax;
+    private boolean changed = false;
 
     public TemperatureComponent(double temperatureMax) {
         this.temperatureMax = temperatureMax;
     }
 
     public void setTemperature(double temp) {
-        this.temperature = temp;
-        this.temperature = Math.min(Math.max(temperature, 0), temperatureMax);
+        double newTemperature = Math.min(Math.max(temp, 0), temperatureMax);
+        if (newTemperature != temperature) {
+            temperature = newTemperature;
+            changed = true;
+        }
+    }
+
+    /**
+     * Return whether the temperature changed since the last call.
+     */
+    public boolean checkAndResetChanged() {
+        boolean result = changed;
+        changed = false;
+        return result;
     }
 
     public void increaseTemperature(double temp) {
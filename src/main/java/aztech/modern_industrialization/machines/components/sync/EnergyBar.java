@@ -30,6 +30,7 @@ import aztech.modern_industrialization.machines.gui.ClientComponentRenderer;
 import aztech.modern_industrialization.util.RenderHelper;
 import com.mojang.blaze3d.systems.RenderSystem;
 import java.util.Collections;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import net.minecraft.client.gui.DrawableHelper;
 import net.minecraft.client.gui.screen.Screen;
@@ -43,21 +44,33 @@ public class EnergyBar {
     public static class Server implements SyncedComponent.Server<Data> {
         public final Parameters params;
         public final Supplier<Long> euSupplier, maxEuSupplier;
+        /**
+         * The fill ratio of the bar is interpolated, the capacity is synced exactly.
+         */
+        private final InterpolatedValue.Server fill;
 
-        public Server(Parameters params, Supplier<Long> euSupplier, Supplier<Long> maxEuSupplier) {
+        public Server(Parameters params, Supplier<Long> euSupplier, Supplier<Long> maxEuSupplier, LongSupplier timeSupplier) {
             this.params = params;
             this.euSupplier = euSupplier;
             this.maxEuSupplier = maxEuSupplier;
+            this.fill = new InterpolatedValue.Server(0.002, timeSupplier);
         }
 
         @Override
         public Data copyData() {
-            return new Data(euSupplier.get(), maxEuSupplier.get());
+            return new Data(fill.copyData(getFill()), maxEuSupplier.get());
         }
 
         @Override
         public boolean needsSync(Data cachedData) {
-            return cachedData.eu != euSupplier.get() || cachedData.maxEu != maxEuSupplier.get();
+            // Always update the interpolation, even if the capacity changed
+            boolean fillNeedsSync = fill.needsSync(cachedData.fill, getFill());
+            return fillNeedsSync || cachedData.maxEu != maxEuSupplier.get();
+        }
+
+        private double getFill() {
+            long maxEu = maxEuSupplier.get();
+            return maxEu == 0 ? 0 : (double) euSupplier.get() / maxEu;
         }
 
         @Override
@@ -69,7 +82,7 @@ public class EnergyBar {
 
         @Override
         public void writeCurrentData(PacketByteBuf buf) {
-            buf.writeLong(euSupplier.get());
+            fill.write(buf, getFill());
             buf.writeLong(maxEuSupplier.get());
         }
 
@@ -81,7 +94,8 @@ public class EnergyBar {
 
     public static class Client implements SyncedComponent.Client {
         final Parameters params;
-        long eu, maxEu;
+        final InterpolatedValue.Client fill = new InterpolatedValue.Client();
+        long maxEu;
 
         public Client(PacketByteBuf buf) {
             this.params = new Parameters(buf.readInt(), buf.readInt());
@@ -90,7 +104,7 @@ public class EnergyBar {
 
         @Override
         public void read(PacketByteBuf buf) {
-            eu = buf.readLong();
+            fill.read(buf);
             maxEu = buf.readLong();
         }
 
@@ -109,9 +123,9 @@ public class EnergyBar {
                 int px = x + params.renderX;
                 int py = y + params.renderY;
                 helper.drawTexture(matrices, px, py, 230, 0, WIDTH, HEIGHT);
-                float fill = (float) eu / maxEu;
-                int fillPixels = (int) (fill * HEIGHT);
-                if (fill > 0.95)
+                float fillRatio = (float) fill.get(1);
+                int fillPixels = (int) (fillRatio * HEIGHT);
+                if (fillRatio > 0.95)
                     fillPixels = HEIGHT;
                 helper.drawTexture(matrices, px, py + HEIGHT - fillPixels, 243, HEIGHT - fillPixels, WIDTH, fillPixels);
             }
@@ -120,6 +134,7 @@ public class EnergyBar {
             public void renderTooltip(MachineScreenHandlers.ClientScreen screen, MatrixStack matrices, int x, int y, int cursorX, int cursorY) {
 
                 if (RenderHelper.isPointWithinRectangle(params.renderX, params.renderY, WIDTH, HEIGHT, cursorX - x, cursorY - y)) {
+                    long eu = Math.round(fill.get(1) * maxEu);
                     Text tooltip;
                     if (Screen.hasShiftDown()) {
                         tooltip = new TranslatableText("text.modern_industrialization.energy_bar", eu, maxEu);
@@ -153,11 +168,11 @@ public class EnergyBar {
     }
 
     private static class Data {
-        final long eu;
+        final InterpolatedValue.Tracked fill;
         final long maxEu;
 
-        Data(long eu, long maxEu) {
-            this.eu = eu;
+        Data(InterpolatedValue.Tracked fill, long maxEu) {
+            this.fill = fill;
             this.maxEu = maxEu;
         }
     }
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.components.sync;
+
+import java.util.function.LongSupplier;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.network.PacketByteBuf;
+
+/**
+ * A value that is synced together with its rate of change, so that the client
+ * can interpolate it between syncs. A value that changes steadily, such as the
+ * progress of a recipe, is only synced again when the interpolation drifts too
+ * far from the real value, for example when a recipe starts, stalls, or is
+ * overclocked.
+ */
+final class InterpolatedValue {
+    private InterpolatedValue() {
+    }
+
+    /**
+     * Server side. There is one instance per synced component, shared by all the
+     * players that have the screen open.
+     */
+    static final class Server {
+        private final double tolerance;
+        private final LongSupplier timeSupplier;
+        /**
+         * Rate of change of the value per tick, measured between the last two world
+         * times where the value was read.
+         */
+        private double rate = 0;
+        private double lastValue = Double.NaN;
+        private long lastTime;
+
+        /**
+         * @param tolerance    How far the interpolated value may be from the real
+         *                     value before a sync is needed.
+         * @param timeSupplier The time of the world, the same time is used by the
+         *                     client to interpolate.
+         */
+        Server(double tolerance, LongSupplier timeSupplier) {
+            this.tolerance = tolerance;
+            this.timeSupplier = timeSupplier;
+        }
+
+        Tracked copyData(double value) {
+            value = sanitize(value);
+            long time = timeSupplier.getAsLong();
+            updateRate(value, time);
+            return new Tracked(value, rate, time);
+        }
+
+        /**
+         * May be called any number of times per tick, the interpolation only depends
+         * on the world time elapsed since the last sync.
+         */
+        boolean needsSync(Tracked tracked, double value) {
+            value = sanitize(value);
+            long time = timeSupplier.getAsLong();
+            updateRate(value, time);
+            double interpolated = tracked.sentValue + tracked.sentRate * (time - tracked.sentTime);
+            return Math.abs(value - interpolated) > tolerance;
+        }
+
+        void write(PacketByteBuf buf, double value) {
+            buf.writeDouble(sanitize(value));
+            buf.writeDouble(rate);
+        }
+
+        private void updateRate(double value, long time) {
+            if (time != lastTime || Double.isNaN(lastValue)) {
+                if (!Double.isNaN(lastValue) && time > lastTime) {
+                    rate = (value - lastValue) / (time - lastTime);
+                }
+                lastValue = value;
+                lastTime = time;
+            }
+        }
+
+        /**
+         * Replace NaN, for example the progress of a crafter that never had a recipe,
+         * by 0 so that it doesn't trigger a sync every tick.
+         */
+        private static double sanitize(double value) {
+            return Double.isNaN(value) ? 0 : value;
+        }
+    }
+
+    /**
+     * The value that was last sent to a player, and the world time of that sync.
+     */
+    static final class Tracked {
+        private final double sentValue;
+        private final double sentRate;
+        private final long sentTime;
+
+        private Tracked(double sentValue, double sentRate, long sentTime) {
+            this.sentValue = sentValue;
+            this.sentRate = sentRate;
+            this.sentTime = sentTime;
+        }
+    }
+
+    static final class Client {
+        private double value;
+        private double rate;
+        private long receivedTime;
+
+        void read(PacketByteBuf buf) {
+            value = buf.readDouble();
+            rate = buf.readDouble();
+            receivedTime = getTime();
+        }
+
+        /**
+         * Return the interpolated value for the current frame, clamped between 0 and
+         * max.
+         */
+        double get(double max) {
+            MinecraftClient client = MinecraftClient.getInstance();
+            double elapsed = getTime() - receivedTime + client.getTickDelta();
+            return Math.max(0, Math.min(max, value + rate * elapsed));
+        }
+
+        private static long getTime() {
+            MinecraftClient client = MinecraftClient.getInstance();
+            return client.world == null ? 0 : client.world.getTime();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import aztech.modern_industrialization.machines.SyncedComponent;
 import aztech.modern_industrialization.machines.SyncedComponents;
 import aztech.modern_industrialization.machines.gui.ClientComponentRenderer;
 import com.mojang.blaze3d.systems.RenderSystem;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import net.minecraft.client.gui.DrawableHelper;
 import net.minecraft.client.util.math.MatrixStack;
@@ -35,23 +36,26 @@ import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
 
 public class ProgressBar {
-    public static class Server implements SyncedComponent.Server<Float> {
+    public static class Server implements SyncedComponent.Server<InterpolatedValue.Tracked> {
         private final Parameters params;
         private final Supplier<Float> progressSupplier;
+        // Less than a tenth of a pixel
+        private final InterpolatedValue.Server progress;
 
-        public Server(Parameters params, Supplier<Float> progressSupplier) {
+        public Server(Parameters params, Supplier<Float> progressSupplier, LongSupplier timeSupplier) {
             this.params = params;
             this.progressSupplier = progressSupplier;
+            this.progress = new InterpolatedValue.Server(0.005, timeSupplier);
         }
 
         @Override
-        public Float copyData() {
-            return progressSupplier.get();
+        public InterpolatedValue.Tracked copyData() {
+            return progress.copyData(progressSupplier.get());
         }
 
         @Override
-        public boolean needsSync(Float cachedData) {
-            return !cachedData.equals(progressSupplier.get());
+        public boolean needsSync(InterpolatedValue.Tracked cachedData) {
+            return progress.needsSync(cachedData, progressSupplier.get());
         }
 
         @Override
@@ -65,7 +69,7 @@ public class ProgressBar {
 
         @Override
         public void writeCurrentData(PacketByteBuf buf) {
-            buf.writeFloat(progressSupplier.get());
+            progress.write(buf, progressSupplier.get());
         }
 
         @Override
@@ -76,7 +80,7 @@ public class ProgressBar {
 
     public static class Client implements SyncedComponent.Client {
         public final Parameters params;
-        public float progress;
+        private final InterpolatedValue.Client progress = new InterpolatedValue.Client();
 
         public Client(PacketByteBuf buf) {
             this.params = new Parameters(buf.readInt(), buf.readInt(), buf.readString(), buf.readBoolean());
@@ -85,7 +89,7 @@ public class ProgressBar {
 
         @Override
         public void read(PacketByteBuf buf) {
-            this.progress = buf.readFloat();
+            progress.read(buf);
         }
 
         @Override
@@ -96,7 +100,7 @@ public class ProgressBar {
         public class Renderer implements ClientComponentRenderer {
             @Override
             public void renderBackground(DrawableHelper helper, MatrixStack matrices, int x, int y) {
-                RenderHelper.renderProgress(helper, matrices, x, y, params, progress);
+                RenderHelper.renderProgress(helper, matrices, x, y, params, (float) progress.get(1));
             }
         }
     }
@@ -45,17 +45,19 @@ public class RecipeEfficiencyBar {
     public static class Server implements SyncedComponent.Server<Data> {
         private final Parameters params;
         private final CrafterComponent crafter;
+        private final InterpolatedValue.Server efficiencyTicks;
 
         public Server(Parameters params, CrafterComponent crafter) {
             this.params = params;
             this.crafter = crafter;
+            this.efficiencyTicks = new InterpolatedValue.Server(0.5, () -> crafter.getBehavior().getCrafterWorld().getTime());
         }
 
         @Override
         public Data copyData() {
             if (crafter.hasActiveRecipe()) {
-                return new Data(crafter.getEfficiencyTicks(), crafter.getMaxEfficiencyTicks(), crafter.getCurrentRecipeEu(),
-                        crafter.getBaseRecipeEu(), crafter.getBehavior().getMaxRecipeEu());
+                return new Data(efficiencyTicks.copyData(crafter.getEfficiencyTicks()), crafter.getMaxEfficiencyTicks(), crafter.getBaseRecipeEu(),
+                        crafter.getOverclockBaseEu(), crafter.getRecipeTotalEu(), crafter.getBatchSize(), crafter.getBehavior().getMaxRecipeEu());
             } else {
                 return new Data();
             }
@@ -65,9 +67,15 @@ public class RecipeEfficiencyBar {
         public boolean needsSync(Data cachedData) {
             if (!crafter.hasActiveRecipe()) {
                 return cachedData.hasActiveRecipe;
+            } else if (!cachedData.hasActiveRecipe) {
+                return true;
             } else {
-                return crafter.getEfficiencyTicks() != cachedData.efficiencyTicks || crafter.getMaxEfficiencyTicks() != cachedData.maxEfficiencyTicks
-                        || crafter.getCurrentRecipeEu() != cachedData.currentRecipeEu || crafter.getBaseRecipeEu() != cachedData.baseRecipeEu
+                // The current EU/t is computed by the client from the interpolated efficiency
+                // ticks, so that ramping up the overclock doesn't need a sync every tick.
+                boolean efficiencyNeedsSync = efficiencyTicks.needsSync(cachedData.efficiencyTicks, crafter.getEfficiencyTicks());
+                return efficiencyNeedsSync || crafter.getMaxEfficiencyTicks() != cachedData.maxEfficiencyTicks
+                        || crafter.getBaseRecipeEu() != cachedData.baseRecipeEu || crafter.getOverclockBaseEu() != cachedData.overclockBaseEu
+                        || crafter.getRecipeTotalEu() != cachedData.recipeTotalEu || crafter.getBatchSize() != cachedData.batchSize
                         || crafter.getBehavior().getMaxRecipeEu() != cachedData.maxRecipeEu;
             }
         }
@@ -83,10 +91,12 @@ public class RecipeEfficiencyBar {
         public void writeCurrentData(PacketByteBuf buf) {
             if (crafter.hasActiveRecipe()) {
                 buf.writeBoolean(true);
-                buf.writeInt(crafter.getEfficiencyTicks());
+                efficiencyTicks.write(buf, crafter.getEfficiencyTicks());
                 buf.writeInt(crafter.getMaxEfficiencyTicks());
-                buf.writeLong(crafter.getCurrentRecipeEu());
                 buf.writeLong(crafter.getBaseRecipeEu());
+                buf.writeLong(crafter.getOverclockBaseEu());
+                buf.writeLong(crafter.getRecipeTotalEu());
+                buf.writeVarInt(crafter.getBatchSize());
             } else {
                 buf.writeBoolean(false);
             }
@@ -102,10 +112,12 @@ public class RecipeEfficiencyBar {
     public static class Client implements SyncedComponent.Client {
         final Parameters params;
         boolean hasActiveRecipe;
-        int efficiencyTicks;
+        final InterpolatedValue.Client efficiencyTicks = new InterpolatedValue.Client();
         int maxEfficiencyTicks;
-        long currentRecipeEu;
         long baseRecipeEu;
+        long overclockBaseEu;
+        long recipeTotalEu;
+        int batchSize;
         long maxRecipeEu;
 
         public Client(PacketByteBuf buf) {
@@ -117,10 +129,12 @@ public class RecipeEfficiencyBar {
         public void read(PacketByteBuf buf) {
             hasActiveRecipe = buf.readBoolean();
             if (hasActiveRecipe) {
-                efficiencyTicks = buf.readInt();
+                efficiencyTicks.read(buf);
                 maxEfficiencyTicks = buf.readInt();
-                currentRecipeEu = buf.readLong();
                 baseRecipeEu = buf.readLong();
+                overclockBaseEu = buf.readLong();
+                recipeTotalEu = buf.readLong();
+                batchSize = buf.readVarInt();
             }
             maxRecipeEu = buf.readLong();
         }
@@ -130,6 +144,10 @@ public class RecipeEfficiencyBar {
             return new Renderer();
         }
 
+        private int getEfficiencyTicks() {
+            return (int) efficiencyTicks.get(maxEfficiencyTicks);
+        }
+
         private static final Identifier TEXTURE = new MIIdentifier("textures/gui/efficiency_bar.png");
         private static final int WIDTH = 100, HEIGHT = 2;
 
@@ -140,7 +158,7 @@ public class RecipeEfficiencyBar {
                 DrawableHelper.drawTexture(matrices, x + params.renderX - 1, y + params.renderY - 1, helper.getZOffset(), 0, 2, WIDTH + 2, HEIGHT + 2,
                         6, 102);
                 if (hasActiveRecipe) {
-                    int barPixels = (int) ((float) efficiencyTicks / maxEfficiencyTicks * WIDTH);
+                    int barPixels = (int) ((float) getEfficiencyTicks() / maxEfficiencyTicks * WIDTH);
                     DrawableHelper.drawTexture(matrices, x + params.renderX, y + params.renderY, helper.getZOffset(), 0, 0, barPixels, HEIGHT, 6,
                             102);
                 }
@@ -151,11 +169,13 @@ public class RecipeEfficiencyBar {
                 if (RenderHelper.isPointWithinRectangle(params.renderX, params.renderY, WIDTH, HEIGHT, cursorX - x, cursorY - y)) {
                     List<Text> tooltip = new ArrayList<>();
                     if (hasActiveRecipe) {
+                        int currentEfficiencyTicks = getEfficiencyTicks();
+                        long copyRecipeEu = CrafterComponent.getOverclockedEu(overclockBaseEu, recipeTotalEu, currentEfficiencyTicks, maxRecipeEu);
                         DecimalFormat factorFormat = new DecimalFormat("#.#");
-                        tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_ticks", efficiencyTicks, maxEfficiencyTicks));
+                        tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_ticks", currentEfficiencyTicks, maxEfficiencyTicks));
                         tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_factor",
-                                factorFormat.format((double) currentRecipeEu / baseRecipeEu)));
-                        tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_eu", currentRecipeEu));
+                                factorFormat.format((double) copyRecipeEu / baseRecipeEu)));
+                        tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_eu", copyRecipeEu * batchSize));
 
                     } else {
                         tooltip.add(new TranslatableText("text.modern_industrialization.efficiency_default_message"));
@@ -171,27 +191,34 @@ public class RecipeEfficiencyBar {
 
     private static class Data {
         final boolean hasActiveRecipe;
-        final int efficiencyTicks;
+        final InterpolatedValue.Tracked efficiencyTicks;
         final int maxEfficiencyTicks;
-        final long currentRecipeEu;
         final long baseRecipeEu;
+        final long overclockBaseEu;
+        final long recipeTotalEu;
+        final int batchSize;
         final long maxRecipeEu;
 
         private Data() {
             this.hasActiveRecipe = false;
-            this.efficiencyTicks = 0;
+            this.efficiencyTicks = null;
             this.maxEfficiencyTicks = 0;
-            this.currentRecipeEu = 0;
             this.baseRecipeEu = 0;
+            this.overclockBaseEu = 0;
+            this.recipeTotalEu = 0;
+            this.batchSize = 0;
             this.maxRecipeEu = 0;
         }
 
-        private Data(int efficiencyTicks, int maxEfficiencyTicks, long currentRecipeEu, long baseRecipeEu, long maxRecipeEu) {
+        private Data(InterpolatedValue.Tracked efficiencyTicks, int maxEfficiencyTicks, long baseRecipeEu, long overclockBaseEu, long recipeTotalEu,
+                int batchSize, long maxRecipeEu) {
             this.efficiencyTicks = efficiencyTicks;
             this.maxEfficiencyTicks = maxEfficiencyTicks;
             this.hasActiveRecipe = true;
-            this.currentRecipeEu = currentRecipeEu;
             this.baseRecipeEu = baseRecipeEu;
+            this.overclockBaseEu = overclockBaseEu;
+            this.recipeTotalEu = recipeTotalEu;
+            this.batchSize = batchSize;
             this.maxRecipeEu = maxRecipeEu;
         }
     }
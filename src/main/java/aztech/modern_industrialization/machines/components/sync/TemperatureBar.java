@@ -31,6 +31,7 @@ import aztech.modern_industrialization.machines.gui.ClientComponentRenderer;
 import com.mojang.blaze3d.systems.RenderSystem;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import net.minecraft.client.gui.DrawableHelper;
 import net.minecraft.client.util.math.MatrixStack;
@@ -40,23 +41,25 @@ import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Identifier;
 
 public class TemperatureBar {
-    public static class Server implements SyncedComponent.Server<Integer> {
+    public static class Server implements SyncedComponent.Server<InterpolatedValue.Tracked> {
         private final Parameters params;
-        private final Supplier<Integer> temperatureSupplier;
+        private final Supplier<Double> temperatureSupplier;
+        private final InterpolatedValue.Server temperature;
 
-        public Server(Parameters params, Supplier<Integer> temperatureSupplier) {
+        public Server(Parameters params, Supplier<Double> temperatureSupplier, LongSupplier timeSupplier) {
             this.params = params;
             this.temperatureSupplier = temperatureSupplier;
+            this.temperature = new InterpolatedValue.Server(1, timeSupplier);
         }
 
         @Override
-        public Integer copyData() {
-            return temperatureSupplier.get();
+        public InterpolatedValue.Tracked copyData() {
+            return temperature.copyData(temperatureSupplier.get());
         }
 
         @Override
-        public boolean needsSync(Integer cachedData) {
-            return !cachedData.equals(temperatureSupplier.get());
+        public boolean needsSync(InterpolatedValue.Tracked cachedData) {
+            return temperature.needsSync(cachedData, temperatureSupplier.get());
         }
 
         @Override
@@ -69,7 +72,7 @@ public class TemperatureBar {
 
         @Override
         public void writeCurrentData(PacketByteBuf buf) {
-            buf.writeInt(temperatureSupplier.get());
+            temperature.write(buf, temperatureSupplier.get());
         }
 
         @Override
@@ -80,7 +83,7 @@ public class TemperatureBar {
 
     public static class Client implements SyncedComponent.Client {
         public final Parameters params;
-        public int temperature;
+        private final InterpolatedValue.Client temperature = new InterpolatedValue.Client();
 
         public Client(PacketByteBuf buf) {
             this.params = new Parameters(buf.readInt(), buf.readInt(), buf.readInt());
@@ -89,7 +92,7 @@ public class TemperatureBar {
 
         @Override
         public void read(PacketByteBuf buf) {
-            this.temperature = buf.readInt();
+            temperature.read(buf);
         }
 
         @Override
@@ -108,7 +111,7 @@ public class TemperatureBar {
                 // background
                 DrawableHelper.drawTexture(matrices, x + params.renderX - 1, y + params.renderY - 1, helper.getZOffset(), 0, 2, WIDTH + 2, HEIGHT + 2,
                         6, 102);
-                int barPixels = (int) ((float) temperature / params.temperatureMax * WIDTH);
+                int barPixels = (int) (temperature.get(params.temperatureMax) / params.temperatureMax * WIDTH);
                 DrawableHelper.drawTexture(matrices, x + params.renderX, y + params.renderY, helper.getZOffset(), 0, 0, barPixels, HEIGHT, 6, 102);
             }
 
@@ -117,7 +120,7 @@ public class TemperatureBar {
                 if (aztech.modern_industrialization.util.RenderHelper.isPointWithinRectangle(params.renderX, params.renderY, WIDTH, HEIGHT,
                         cursorX - x, cursorY - y)) {
                     List<Text> tooltip = new ArrayList<>();
-                    tooltip.add(new TranslatableText("text.modern_industrialization.temperature", temperature));
+                    tooltip.add(new TranslatableText("text.modern_industrialization.temperature", (int) temperature.get(params.temperatureMax)));
                     screen.renderTooltip(matrices, tooltip, cursorX, cursorY);
                 }
             }
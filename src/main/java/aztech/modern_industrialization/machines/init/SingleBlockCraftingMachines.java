@@ -228,7 +228,7 @@ public final class SingleBlockCraftingMachines {
                 null,
                 items.sublist(0, itemInputCount), items.sublist(itemInputCount, itemInputCount + itemOutputCount),
                 fluids.sublist(0, fluidInputCount), fluids.sublist(fluidInputCount, fluidInputCount + fluidOutputCount),
-                progressBarParams, null
+                progressBarParams, type, null
         ), tiers);
     }
 
@@ -281,8 +281,8 @@ public final class SingleBlockCraftingMachines {
                         itemId,
                         categoryParams.itemInputs, categoryParams.itemOutputs,
                         categoryParams.fluidInputs, categoryParams.fluidOutputs,
-                        categoryParams.progressBarParams,
-                        recipe -> recipe.getType() == recipeType && minEu <= recipe.eu && recipe.eu <= maxEu);
+                        categoryParams.progressBarParams, recipeType,
+                        recipe -> minEu <= recipe.eu && recipe.eu <= maxEu);
                 ReiMachineRecipes.registerCategory(itemId, category);
                 ReiMachineRecipes.registerMachineClickArea(itemId, new Rectangle(categoryParams.progressBarParams));
                 previousCategories.add(category);
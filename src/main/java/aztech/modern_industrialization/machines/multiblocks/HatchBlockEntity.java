@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.machines.multiblocks;
 
+import aztech.modern_industrialization.inventory.ChangeListener;
 import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
 import aztech.modern_industrialization.inventory.ConfigurableItemStack;
 import aztech.modern_industrialization.machines.BEP;
@@ -66,6 +67,20 @@ public abstract class HatchBlockEntity extends MachineBlockEntity implements Tic
         });
     }
 
+    private boolean inventoryChanged = true;
+    private boolean listeningToInventory = false;
+    private final ChangeListener inventoryListener = new ChangeListener() {
+        @Override
+        protected void onChange() {
+            inventoryChanged = true;
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            return true;
+        }
+    };
+
     private String lastSyncedMachineCasing = null;
     private String matchedCasing = null;
     protected final OrientationComponent orientation;
@@ -138,13 +153,33 @@ public abstract class HatchBlockEntity extends MachineBlockEntity implements Tic
             sync();
         }
 
+        // The inventory is created by the subclass, so we can only listen to it once
+        // the hatch is constructed.
+        if (!listeningToInventory) {
+            getInventory().addListener(inventoryListener, null);
+            listeningToInventory = true;
+        }
+
         tickTransfer();
-        markDirty();
+        // The hatch is also modified by its multiblock, so we check for changes here.
+        boolean componentsChanged = checkComponentsChanged();
+        if (inventoryChanged || componentsChanged) {
+            inventoryChanged = false;
+            markDirty();
+        }
     }
 
     protected void tickTransfer() {
     }
 
+    /**
+     * Return whether components that are not tracked by the inventory, such as
+     * energy, changed since the last tick.
+     */
+    protected boolean checkComponentsChanged() {
+        return false;
+    }
+
     public void appendItemInputs(List<ConfigurableItemStack> list) {
     }
 
@@ -25,7 +25,13 @@ package aztech.modern_industrialization.machines.multiblocks;
 
 import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.machines.MachineBlock;
+import aztech.modern_industrialization.machines.multiblocks.world.ChunkEventListeners;
 import aztech.modern_industrialization.util.RenderHelper;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import java.util.*;
+import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.VertexConsumerProvider;
@@ -37,9 +43,16 @@ import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
 
 public class MultiblockMachineBER implements BlockEntityRenderer<MultiblockMachineBlockEntity> {
+    // Only accessed from the render thread
+    private static final Map<MultiblockMachineBlockEntity, HighlightCache> CACHES = new WeakHashMap<>();
+    private static final Map<Item, Optional<HatchType>> HATCH_TYPES = new IdentityHashMap<>();
+
     public MultiblockMachineBER(BlockEntityRendererFactory.Context context) {
     }
 
@@ -49,34 +62,19 @@ public class MultiblockMachineBER implements BlockEntityRenderer<MultiblockMachi
         boolean drawHighlights = isHoldingWrench() && !be.isShapeValid();
         HatchType hatchType = getHeldHatchType();
         if (drawHighlights || hatchType != null) {
-            ShapeMatcher matcher = new ShapeMatcher(be.getWorld(), be.getPos(), be.orientation.facingDirection, be.getActiveShape());
-
-            for (BlockPos pos : matcher.getPositions()) {
-                matrices.push();
-                matrices.translate(pos.getX() - be.getPos().getX(), pos.getY() - be.getPos().getY(), pos.getZ() - be.getPos().getZ());
+            HighlightCache cache = CACHES.computeIfAbsent(be, b -> new HighlightCache());
+            cache.update(be);
 
-                HatchFlags hatchFlag = matcher.getHatchFlags(pos);
-                if (hatchType != null) {
-                    if (hatchFlag != null && hatchFlag.allows(hatchType)) {
-                        // Highlight placeable hatches in green
-                        matrices.translate(-0.005, -0.005, -0.005);
-                        matrices.scale(1.01f, 1.01f, 1.01f);
-                        RenderHelper.drawOverlay(matrices, vcp, 111f / 256, 1, 111f / 256, 15728880, overlay);
-                    }
-                }
-                if (drawHighlights) {
-                    if (!matcher.matches(pos, be.getWorld(), null)) {
-                        if (be.getWorld().getBlockState(pos).isAir()) {
-                            // Enqueue state preview
-                            MultiblockErrorHighlight.enqueueHighlight(pos, matcher.getSimpleMember(pos).getPreviewState());
-                        } else {
-                            // Enqueue red cube
-                            MultiblockErrorHighlight.enqueueHighlight(pos, null);
-                        }
-                    }
+            if (hatchType != null) {
+                // Highlight placeable hatches in green
+                RenderHelper.drawVertices(matrices, vcp, cache.getHatchOverlay(hatchType), 111f / 256, 1, 111f / 256, 15728880, overlay);
+            }
+            if (drawHighlights) {
+                cache.updateErrors(be.getWorld());
+                for (int i = 0; i < cache.errorPositions.size(); ++i) {
+                    // Enqueue state preview, or red cube if the state is null
+                    MultiblockErrorHighlight.enqueueHighlight(cache.errorPositions.get(i), cache.errorStates.get(i));
                 }
-
-                matrices.pop();
             }
         }
     }
@@ -96,18 +94,99 @@ public class MultiblockMachineBER implements BlockEntityRenderer<MultiblockMachi
 
     @Nullable
     private static HatchType getHatchType(ItemStack stack) {
-        Item item = stack.getItem();
-        if (item instanceof BlockItem) {
-            BlockItem blockItem = (BlockItem) item;
-            if (blockItem.getBlock() instanceof MachineBlock) {
-                MachineBlock block = (MachineBlock) blockItem.getBlock();
+        return HATCH_TYPES.computeIfAbsent(stack.getItem(), item -> {
+            if (item instanceof BlockItem blockItem && blockItem.getBlock() instanceof MachineBlock block) {
                 BlockEntity be = block.createBlockEntity(new BlockPos(0, 0, 0), block.getDefaultState());
-                if (be instanceof HatchBlockEntity) {
-                    HatchBlockEntity hatch = (HatchBlockEntity) be;
-                    return hatch.getHatchType();
+                if (be instanceof HatchBlockEntity hatch) {
+                    return Optional.of(hatch.getHatchType());
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * Highlight data of a controller. The rotated shape is only rebuilt when the
+     * shape or the orientation of the controller changes, and the mismatched
+     * positions are only checked again when a block of the shape changes.
+     */
+    private static class HighlightCache {
+        private ShapeTemplate template;
+        private Direction direction;
+        private ShapeMatcher matcher;
+        private BlockPos[] positions;
+        private BlockPos controllerPos;
+        // Chunk sections spanned by the shape, and their revisions at the last update
+        // of the errors
+        private long[] sections;
+        private int[] sectionRevisions;
+        private boolean errorsValid;
+        private final List<BlockPos> errorPositions = new ArrayList<>();
+        private final List<@Nullable BlockState> errorStates = new ArrayList<>();
+        @Nullable
+        private HatchType overlayHatchType;
+        private float[] overlayVertices;
+
+        void update(MultiblockMachineBlockEntity be) {
+            ShapeTemplate activeShape = be.getActiveShape();
+            Direction facingDirection = be.orientation.facingDirection;
+            if (activeShape == template && facingDirection == direction) {
+                return;
+            }
+            template = activeShape;
+            direction = facingDirection;
+            controllerPos = be.getPos();
+            matcher = new ShapeMatcher(be.getWorld(), controllerPos, direction, template);
+            positions = matcher.getPositions().toArray(new BlockPos[0]);
+
+            LongSet sectionSet = new LongOpenHashSet();
+            for (BlockPos pos : positions) {
+                sectionSet.add(ChunkSectionPos.toLong(pos));
+            }
+            sections = sectionSet.toLongArray();
+            sectionRevisions = new int[sections.length];
+            errorsValid = false;
+            overlayHatchType = null;
+        }
+
+        float[] getHatchOverlay(HatchType hatchType) {
+            if (overlayHatchType != hatchType) {
+                overlayHatchType = hatchType;
+                FloatArrayList vertices = new FloatArrayList();
+                for (BlockPos pos : positions) {
+                    HatchFlags hatchFlags = matcher.getHatchFlags(pos);
+                    if (hatchFlags != null && hatchFlags.allows(hatchType)) {
+                        RenderHelper.appendOverlayVertices(vertices, pos.getX() - controllerPos.getX() - 0.005f,
+                                pos.getY() - controllerPos.getY() - 0.005f, pos.getZ() - controllerPos.getZ() - 0.005f, 1.01f);
+                    }
+                }
+                overlayVertices = vertices.toFloatArray();
+            }
+            return overlayVertices;
+        }
+
+        void updateErrors(World world) {
+            boolean changed = !errorsValid;
+            for (int i = 0; i < sections.length; ++i) {
+                int revision = ChunkEventListeners.getClientSectionRevision(world, sections[i]);
+                if (revision != sectionRevisions[i]) {
+                    sectionRevisions[i] = revision;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return;
+            }
+
+            errorsValid = true;
+            errorPositions.clear();
+            errorStates.clear();
+            for (BlockPos pos : positions) {
+                if (!matcher.matches(pos, world, null)) {
+                    errorPositions.add(pos);
+                    errorStates.add(world.getBlockState(pos).isAir() ? matcher.getSimpleMember(pos).getPreviewState() : null);
                 }
             }
         }
-        return null;
     }
 }
@@ -28,6 +28,7 @@ import static net.minecraft.util.math.Direction.*;
 import aztech.modern_industrialization.machines.multiblocks.world.ChunkEventListener;
 import aztech.modern_industrialization.machines.multiblocks.world.ChunkEventListeners;
 import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import java.util.*;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
@@ -46,6 +47,13 @@ public class ShapeMatcher implements ChunkEventListener {
         this.template = template;
         this.simpleMembers = toWorldPos(controllerPos, controllerDirection, template.simpleMembers);
         this.hatchFlags = toWorldPos(controllerPos, controllerDirection, template.hatchFlags);
+
+        this.positions = simpleMembers.keySet().toArray(new BlockPos[0]);
+        this.positionHatches = new HatchBlockEntity[positions.length];
+        this.positionMatches = new boolean[positions.length];
+        for (int i = 0; i < positions.length; ++i) {
+            indexByPos.put(positions[i].asLong(), i);
+        }
     }
 
     private final BlockPos controllerPos;
@@ -53,9 +61,22 @@ public class ShapeMatcher implements ChunkEventListener {
     private final Map<BlockPos, SimpleMember> simpleMembers;
     private final Map<BlockPos, HatchFlags> hatchFlags;
 
+    // Per-position state of the last match, so that only the positions that
+    // changed have to be checked again.
+    private final BlockPos[] positions;
+    private final Long2IntOpenHashMap indexByPos = new Long2IntOpenHashMap();
+    // The hatch used by every position, linked only if the match is successful
+    private final HatchBlockEntity[] positionHatches;
+    private final boolean[] positionMatches;
+    private int failingPositions = 0;
+    private final BitSet dirtyPositions = new BitSet();
+
     private boolean needsRematch = true;
+    private boolean fullRematch = true;
     private boolean matchSuccessful = false;
+    private boolean hatchesChanged = false;
     private final List<HatchBlockEntity> matchedHatches = new ArrayList<>();
+    private Set<ChunkPos> spannedChunks = null;
 
     /**
      * Convert a relative position in the shape template to the real position in the
@@ -107,6 +128,7 @@ public class ShapeMatcher implements ChunkEventListener {
         matchedHatches.clear();
         matchSuccessful = false;
         needsRematch = true;
+        fullRematch = true;
     }
 
     /**
@@ -127,8 +149,8 @@ public class ShapeMatcher implements ChunkEventListener {
             HatchBlockEntity hatch = (HatchBlockEntity) be;
             HatchFlags flags = hatchFlags.get(pos);
             if (flags != null && flags.allows(hatch.getHatchType()) && !hatch.isMatched()) {
-                if (matchedHatches != null) {
-                    matchedHatches.add(hatch);
+                if (hatches != null) {
+                    hatches.add(hatch);
                 }
                 return true;
             }
@@ -145,64 +167,186 @@ public class ShapeMatcher implements ChunkEventListener {
         return matchSuccessful && !needsRematch;
     }
 
+    /**
+     * Return true if the last call to {@link #rematch} changed the matched
+     * hatches. If it returns false after a successful match, the hatches were
+     * already linked by the previous successful match and are still the same.
+     */
+    public boolean haveHatchesChanged() {
+        return hatchesChanged;
+    }
+
+    /**
+     * Check the positions that changed since the last match. Hatches that are
+     * still valid stay linked. If a chunk spanned by the shape is not loaded, the
+     * match is unsuccessful until that chunk is loaded again.
+     */
     public void rematch(World world) {
         Preconditions.checkArgument(needsRematch);
-        unlinkHatches();
-        matchSuccessful = true;
+        needsRematch = false;
+        hatchesChanged = false;
+        boolean wasSuccessful = matchSuccessful;
 
-        for (BlockPos pos : simpleMembers.keySet()) {
-            // TODO: check if the chunk is loaded
+        if (fullRematch) {
+            fullRematch = false;
+            for (HatchBlockEntity hatch : matchedHatches) {
+                hatch.unlink();
+            }
+            matchedHatches.clear();
+            Arrays.fill(positionHatches, null);
+            Arrays.fill(positionMatches, false);
+            failingPositions = positions.length;
+            dirtyPositions.set(0, positions.length);
+            wasSuccessful = false;
+            hatchesChanged = true;
+        }
+
+        // Don't load chunks, wait for them to be loaded instead
+        for (ChunkPos chunkPos : getSpannedChunks()) {
+            if (!world.isChunkLoaded(chunkPos.x, chunkPos.z)) {
+                // Chunk loading will trigger a full rematch
+                unlinkHatches();
+                needsRematch = false;
+                hatchesChanged = true;
+                return;
+            }
+        }
+
+        for (int i = dirtyPositions.nextSetBit(0); i >= 0; i = dirtyPositions.nextSetBit(i + 1)) {
+            rematchPosition(world, i, wasSuccessful);
+        }
+        dirtyPositions.clear();
 
-            if (!matches(pos, world, matchedHatches)) {
-                matchSuccessful = false;
+        if (failingPositions == 0 && !wasSuccessful) {
+            // The hatches were not linked yet, make sure that another multiblock didn't
+            // take them in the meantime
+            for (int i = 0; i < positions.length; ++i) {
+                if (positionHatches[i] != null && positionHatches[i].isMatched()) {
+                    positionHatches[i] = null;
+                    positionMatches[i] = false;
+                    failingPositions++;
+                    dirtyPositions.set(i);
+                }
+            }
+        }
+
+        matchSuccessful = failingPositions == 0;
+        if (matchSuccessful && !wasSuccessful) {
+            for (HatchBlockEntity hatch : positionHatches) {
+                if (hatch != null) {
+                    hatch.link(template.hatchCasing);
+                }
+            }
+        } else if (!matchSuccessful && wasSuccessful) {
+            for (HatchBlockEntity hatch : positionHatches) {
+                if (hatch != null) {
+                    hatch.unlink();
+                }
             }
         }
+        if (matchSuccessful != wasSuccessful) {
+            hatchesChanged = true;
+        }
 
-        if (!matchSuccessful) {
+        if (hatchesChanged) {
             matchedHatches.clear();
+            if (matchSuccessful) {
+                for (HatchBlockEntity hatch : positionHatches) {
+                    if (hatch != null) {
+                        matchedHatches.add(hatch);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check a single position again, updating its hatch if necessary.
+     *
+     * @param linked True if the hatches of the positions are currently linked.
+     */
+    private void rematchPosition(World world, int index, boolean linked) {
+        BlockPos pos = positions[index];
+        HatchBlockEntity oldHatch = positionHatches[index];
+        HatchBlockEntity newHatch = null;
+        boolean matches;
+
+        if (simpleMembers.get(pos).matchesState(world.getBlockState(pos))) {
+            matches = true;
+        } else if (world.getBlockEntity(pos) instanceof HatchBlockEntity hatch) {
+            HatchFlags flags = hatchFlags.get(pos);
+            // Our own hatch is already matched
+            matches = flags != null && flags.allows(hatch.getHatchType()) && (hatch == oldHatch || !hatch.isMatched());
+            if (matches) {
+                newHatch = hatch;
+            }
         } else {
-            for (HatchBlockEntity hatch : matchedHatches) {
-                hatch.link(template.hatchCasing);
+            matches = false;
+        }
+
+        if (oldHatch != newHatch) {
+            hatchesChanged = true;
+            if (linked) {
+                if (oldHatch != null) {
+                    oldHatch.unlink();
+                }
+                if (newHatch != null) {
+                    newHatch.link(template.hatchCasing);
+                }
             }
         }
+        positionHatches[index] = newHatch;
 
-        needsRematch = false;
+        if (matches != positionMatches[index]) {
+            positionMatches[index] = matches;
+            failingPositions += matches ? -1 : 1;
+        }
     }
 
     public Set<ChunkPos> getSpannedChunks() {
-        Set<ChunkPos> spannedChunks = new HashSet<>();
-        for (BlockPos pos : simpleMembers.keySet()) {
-            spannedChunks.add(new ChunkPos(pos));
+        if (spannedChunks == null) {
+            spannedChunks = new HashSet<>();
+            for (BlockPos pos : simpleMembers.keySet()) {
+                spannedChunks.add(new ChunkPos(pos));
+            }
         }
-        return spannedChunks;
+        return Collections.unmodifiableSet(spannedChunks);
     }
 
     public void registerListeners(World world) {
         for (ChunkPos chunkPos : getSpannedChunks()) {
             ChunkEventListeners.listeners.add(world, chunkPos, this);
         }
+        for (BlockPos pos : simpleMembers.keySet()) {
+            ChunkEventListeners.blockListeners.add(world, pos, this);
+        }
     }
 
     public void unregisterListeners(World world) {
         for (ChunkPos chunkPos : getSpannedChunks()) {
             ChunkEventListeners.listeners.remove(world, chunkPos, this);
         }
+        for (BlockPos pos : simpleMembers.keySet()) {
+            ChunkEventListeners.blockListeners.remove(world, pos, this);
+        }
     }
 
     @Override
     public void onBlockUpdate(BlockPos pos) {
-        if (simpleMembers.containsKey(pos)) {
-            needsRematch = true;
-        }
+        // We are only registered for the positions of the shape
+        dirtyPositions.set(indexByPos.get(pos.asLong()));
+        needsRematch = true;
     }
 
     @Override
     public void onUnload() {
         needsRematch = true;
+        fullRematch = true;
     }
 
     @Override
     public void onLoad() {
         needsRematch = true;
+        fullRematch = true;
     }
 }
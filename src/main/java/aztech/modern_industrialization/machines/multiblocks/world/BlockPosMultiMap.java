@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.multiblocks.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+/**
+ * Multimap from block positions to values, per world. Positions are packed with
+ * {@link BlockPos#asLong}, so that looking up a position without any value is a
+ * single miss in a primitive map.
+ */
+public class BlockPosMultiMap<T> {
+    private final Map<World, Long2ObjectOpenHashMap<List<T>>> storage = new HashMap<>();
+
+    public final void add(World world, BlockPos pos, T t) {
+        storage.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>()).computeIfAbsent(pos.asLong(), p -> new ArrayList<>(1)).add(t);
+    }
+
+    public final void remove(World world, BlockPos pos, T t) {
+        Long2ObjectOpenHashMap<List<T>> posMap = storage.get(world);
+        long packedPos = pos.asLong();
+        List<T> tList = posMap == null ? null : posMap.get(packedPos);
+
+        if (tList == null || !tList.remove(t)) {
+            throw new RuntimeException("Could not remove element at position " + pos + " as it does not exist.");
+        }
+
+        if (tList.size() == 0) {
+            posMap.remove(packedPos);
+
+            if (posMap.size() == 0) {
+                storage.remove(world);
+            }
+        }
+    }
+
+    public final List<T> get(World world, BlockPos pos) {
+        Long2ObjectOpenHashMap<List<T>> posMap = storage.get(world);
+        if (posMap == null) {
+            return Collections.emptyList();
+        }
+        List<T> tList = posMap.get(pos.asLong());
+        return tList == null ? Collections.emptyList() : tList;
+    }
+
+    public final int size() {
+        return storage.size();
+    }
+}
@@ -26,6 +26,10 @@ package aztech.modern_industrialization.machines.multiblocks.world;
 import net.minecraft.util.math.BlockPos;
 
 public interface ChunkEventListener {
+    /**
+     * Called when the block state changes at a position for which this listener
+     * was registered in {@link ChunkEventListeners#blockListeners}.
+     */
     void onBlockUpdate(BlockPos pos);
 
     void onUnload();
@@ -24,17 +24,33 @@
 package aztech.modern_industrialization.machines.multiblocks.world;
 
 import aztech.modern_industrialization.ModernIndustrialization;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.Set;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.World;
 
 public class ChunkEventListeners {
     public static ChunkPosMultiMap<ChunkEventListener> listeners = new ChunkPosMultiMap<>();
+    /**
+     * Listeners that are notified of block state changes, indexed by the positions
+     * they are interested in.
+     */
+    public static BlockPosMultiMap<ChunkEventListener> blockListeners = new BlockPosMultiMap<>();
     private static MinecraftServer server = null;
+    /**
+     * Revision of the chunk sections of the client world, updated every time a
+     * block in the section changes. Used by renderers to cache data that depends on
+     * the blocks.
+     */
+    private static final Long2IntOpenHashMap clientSectionRevisions = new Long2IntOpenHashMap();
+    private static WeakReference<World> clientWorld = new WeakReference<>(null);
+    private static int clientRevision = 0;
 
     public static void init() {
         ServerLifecycleEvents.SERVER_STARTING.register(minecraftServer -> server = minecraftServer);
@@ -61,19 +77,38 @@ public class ChunkEventListeners {
         });
     }
 
-    public static void onBlockStateChange(World world, ChunkPos chunkPos, BlockPos pos) {
+    public static void onBlockStateChange(World world, BlockPos pos) {
         // We skip block state changes that happen outside of the server thread.
         // Hopefully that won't cause problems.
         if (server.isOnThread()) {
-            Set<ChunkEventListener> cels = listeners.get(world, chunkPos);
-            if (cels != null) {
-                for (ChunkEventListener cel : cels) {
-                    cel.onBlockUpdate(pos);
-                }
+            List<ChunkEventListener> cels = blockListeners.get(world, pos);
+            // Not a for-each loop: the common case is an empty list, and we don't want to
+            // allocate an iterator for it.
+            for (int i = 0; i < cels.size(); ++i) {
+                cels.get(i).onBlockUpdate(pos);
             }
         }
     }
 
+    /**
+     * Notify that a block state or a block entity changed in the client world.
+     */
+    public static void onClientBlockChange(World world, BlockPos pos) {
+        if (clientWorld.get() != world) {
+            clientSectionRevisions.clear();
+            clientWorld = new WeakReference<>(world);
+        }
+        clientSectionRevisions.put(ChunkSectionPos.toLong(pos), ++clientRevision);
+    }
+
+    /**
+     * Return the revision of a chunk section of the client world. It changes every
+     * time a block in the section changes.
+     */
+    public static int getClientSectionRevision(World world, long sectionPos) {
+        return clientWorld.get() == world ? clientSectionRevisions.get(sectionPos) : 0;
+    }
+
     private static void ensureServerThread() {
         if (!server.isOnThread()) {
             throw new RuntimeException("Thread is not server thread!");
@@ -85,5 +120,9 @@ public class ChunkEventListeners {
             ModernIndustrialization.LOGGER.warn("ChunkEventListeners#listeners is not empty at server stop! Active worlds: " + listeners.size());
             listeners = new ChunkPosMultiMap<>();
         }
+        if (blockListeners.size() != 0) {
+            ModernIndustrialization.LOGGER.warn("ChunkEventListeners#blockListeners is not empty at server stop! Active worlds: " + blockListeners.size());
+            blockListeners = new BlockPosMultiMap<>();
+        }
     }
 }
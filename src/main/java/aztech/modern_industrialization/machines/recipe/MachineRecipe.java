@@ -25,8 +25,13 @@ package aztech.modern_industrialization.machines.recipe;
 
 import aztech.modern_industrialization.mixin_impl.IngredientMatchingStacksAccessor;
 import aztech.modern_industrialization.util.DefaultedListWrapper;
+import dev.technici4n.fasttransferlib.experimental.api.item.ItemKey;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import net.minecraft.fluid.Fluid;
 import net.minecraft.inventory.Inventory;
@@ -123,6 +128,16 @@ public class MachineRecipe implements Recipe<Inventory> {
         public final Ingredient ingredient;
         public final int amount;
         public final float probability;
+        /**
+         * The items matched by the ingredient, computed the first time they are
+         * needed. The ingredients are recreated when the tags are reloaded, so this
+         * never needs to be invalidated. Vanilla ingredients only compare the item,
+         * so the set is enough to replace {@link Ingredient#test}. Recipes are shared
+         * with other threads, such as REI, so the set is volatile and written after
+         * the list to publish both.
+         */
+        private volatile Set<Item> inputItemSet;
+        private List<Item> inputItemList;
 
         public ItemInput(Ingredient ingredient, int amount, float probability) {
             this.ingredient = ingredient;
@@ -131,12 +146,35 @@ public class MachineRecipe implements Recipe<Inventory> {
         }
 
         public boolean matches(ItemStack otherStack) {
-            return ingredient.test(otherStack);
+            Set<Item> items = getInputItemSet();
+            // Same as Ingredient#test: an empty ingredient only matches an empty stack
+            return items.isEmpty() ? otherStack.isEmpty() : items.contains(otherStack.getItem());
+        }
+
+        /**
+         * Same as {@link #matches(ItemStack)}, but without creating an ItemStack.
+         */
+        public boolean matches(ItemKey key) {
+            return getInputItemSet().contains(key.getItem());
         }
 
         public List<Item> getInputItems() {
-            return Arrays.stream(((IngredientMatchingStacksAccessor) (Object) ingredient).modern_industrialization_getMatchingStacks())
-                    .map(ItemStack::getItem).distinct().collect(Collectors.toList());
+            // Reading the volatile set first makes the list visible
+            getInputItemSet();
+            return inputItemList;
+        }
+
+        Set<Item> getInputItemSet() {
+            Set<Item> items = inputItemSet;
+            if (items == null) {
+                items = new ReferenceLinkedOpenHashSet<>();
+                for (ItemStack stack : ((IngredientMatchingStacksAccessor) (Object) ingredient).modern_industrialization_getMatchingStacks()) {
+                    items.add(stack.getItem());
+                }
+                inputItemList = Collections.unmodifiableList(new ArrayList<>(items));
+                inputItemSet = items = Collections.unmodifiableSet(items);
+            }
+            return items;
         }
 
         public List<ItemStack> getInputStacks() {
@@ -33,6 +33,7 @@ import net.minecraft.fluid.Fluid;
 import net.minecraft.item.Item;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.RecipeManager;
 import net.minecraft.recipe.RecipeSerializer;
 import net.minecraft.recipe.RecipeType;
 import net.minecraft.server.world.ServerWorld;
@@ -60,62 +61,34 @@ public class MachineRecipeType implements RecipeType<MachineRecipe>, RecipeSeria
     }
 
     public MachineRecipe getRecipe(ServerWorld world, Identifier id) {
-        return getRecipes(world).stream().filter(r -> r.getId().equals(id)).findFirst().orElse(null);
+        return getIndex(world).getRecipe(id);
     }
 
     /*
      * Smart recipe system to avoid iterating over all available recipes. Every
-     * recipe can be accessed by the type of its first input, so we build a cache
-     * Item -> MachineRecipe. We also need to store recipes that have fluid inputs
-     * but no item inputs. This cache is updated every 20 seconds in case the
-     * recipes are sometimes reloaded. TODO: only rebuild when the recipes have been
-     * reloaded
+     * item input and every fluid input of every recipe is indexed, so that only
+     * the recipes whose inputs can all be present are returned. The index is
+     * rebuilt when the recipes are reloaded, which we detect because the server
+     * creates a new recipe manager on every datapack reload.
      */
-    private final Map<Item, List<MachineRecipe>> recipeCache = new HashMap<>();
-    private final List<MachineRecipe> fluidOnlyRecipes = new ArrayList<>();
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000; // 20 seconds
-
-    /**
-     * Update recipe cache if necessary
-     */
-    private void updateRecipeCache(ServerWorld world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate <= UPDATE_INTERVAL)
-            return;
-
-        // Update cache
-        lastUpdate = time;
-        recipeCache.clear();
-        fluidOnlyRecipes.clear();
-        for (MachineRecipe recipe : getRecipes(world)) {
-            if (recipe.itemInputs.size() == 0) {
-                if (recipe.fluidInputs.size() > 0) {
-                    fluidOnlyRecipes.add(recipe);
-                }
-            } else {
-                for (Item inputItem : recipe.itemInputs.get(0).getInputItems()) {
-                    recipeCache.putIfAbsent(inputItem, new ArrayList<>());
-                    recipeCache.get(inputItem).add(recipe);
-                }
-            }
+    private RecipeManager indexedRecipeManager = null;
+    private RecipeIndex recipeIndex = null;
+
+    private RecipeIndex getIndex(ServerWorld world) {
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (recipeIndex == null || indexedRecipeManager != recipeManager) {
+            indexedRecipeManager = recipeManager;
+            recipeIndex = new RecipeIndex(getRecipes(world));
         }
+        return recipeIndex;
     }
 
     /**
-     * Get all recipes that are using some Item.
-     */
-    public Collection<MachineRecipe> getMatchingRecipes(ServerWorld world, Item input) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableCollection(recipeCache.getOrDefault(input, Collections.emptyList()));
-    }
-
-    /**
-     * Get all recipes that are not using any input item.
+     * Get all recipes whose inputs can all be found in the given items and fluids.
+     * Never modify or store the result!
      */
-    public Collection<MachineRecipe> getFluidOnlyRecipes(ServerWorld world) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableList(fluidOnlyRecipes);
+    public List<MachineRecipe> getMatchingRecipes(ServerWorld world, Set<Item> items, Set<Fluid> fluids) {
+        return getIndex(world).getMatchingRecipes(items, fluids);
     }
 
     private final Identifier id;
@@ -307,7 +280,7 @@ public class MachineRecipeType implements RecipeType<MachineRecipe>, RecipeSeria
         MachineRecipe recipe = new MachineRecipe(id, this);
         recipe.eu = buf.readVarInt();
         recipe.duration = buf.readVarInt();
-        recipe.itemInputs = readList(buf, b -> new MachineRecipe.ItemInput(Ingredient.fromPacket(b), b.readVarInt(), b.readFloat()));
+        recipe.itemInputs = readList(buf, b -> new MachineRecipe.ItemInput(RecipeSyncIngredients.read(b), b.readVarInt(), b.readFloat()));
         recipe.fluidInputs = readList(buf, b -> new MachineRecipe.FluidInput(Registry.FLUID.get(b.readVarInt()), b.readVarLong(), b.readFloat()));
         recipe.itemOutputs = readList(buf, b -> new MachineRecipe.ItemOutput(Item.byRawId(b.readVarInt()), b.readVarInt(), b.readFloat()));
         recipe.fluidOutputs = readList(buf, b -> new MachineRecipe.FluidOutput(Registry.FLUID.get(b.readVarInt()), b.readVarLong(), b.readFloat()));
@@ -320,7 +293,7 @@ public class MachineRecipeType implements RecipeType<MachineRecipe>, RecipeSeria
         buf.writeVarInt(recipe.eu);
         buf.writeVarInt(recipe.duration);
         writeList(buf, recipe.itemInputs, (b, i) -> {
-            i.ingredient.write(buf);
+            RecipeSyncIngredients.write(buf, i.ingredient);
             buf.writeVarInt(i.amount);
             buf.writeFloat(i.probability);
         });
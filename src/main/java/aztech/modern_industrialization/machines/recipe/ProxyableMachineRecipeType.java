@@ -26,6 +26,7 @@ package aztech.modern_industrialization.machines.recipe;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import net.minecraft.recipe.RecipeManager;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 
@@ -37,17 +38,17 @@ public abstract class ProxyableMachineRecipeType extends MachineRecipeType {
         super(id);
     }
 
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000;
+    private RecipeManager lastRecipeManager = null;
     protected List<MachineRecipe> recipeList = new ArrayList<>();
 
     protected abstract void fillRecipeList(ServerWorld world);
 
     @Override
     public Collection<MachineRecipe> getRecipes(ServerWorld world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate > UPDATE_INTERVAL) {
-            lastUpdate = time;
+        // The server creates a new recipe manager on every datapack reload
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (lastRecipeManager != recipeManager) {
+            lastRecipeManager = recipeManager;
             recipeList.clear();
             fillRecipeList(world);
         }
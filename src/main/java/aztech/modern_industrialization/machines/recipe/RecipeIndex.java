@@ -0,0 +1,184 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.recipe;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.*;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.Item;
+import net.minecraft.util.Identifier;
+
+/**
+ * Lookup structure over the recipes of a {@link MachineRecipeType}. Every item
+ * input and every fluid input of every recipe is indexed, so that a lookup only
+ * returns the recipes whose inputs can all be present in a machine. It is
+ * immutable and rebuilt by the recipe type when the recipes are reloaded.
+ */
+class RecipeIndex {
+    private static final int[] NO_RECIPES = new int[0];
+
+    private final MachineRecipe[] recipes;
+    private final Map<Identifier, MachineRecipe> recipesById = new HashMap<>();
+    private final Map<Item, int[]> recipesByItem;
+    private final Map<Fluid, int[]> recipesByFluid;
+    /**
+     * Recipes without any input that must be present, i.e. only inputs with an
+     * amount of 0.
+     */
+    private final int[] unconditionalRecipes;
+    /**
+     * For every recipe, the items accepted by each of its item inputs that must be
+     * present.
+     */
+    private final Set<Item>[][] requiredItemInputs;
+    /**
+     * For every recipe, the fluids of its fluid inputs that must be present.
+     */
+    private final Fluid[][] requiredFluidInputs;
+
+    @SuppressWarnings("unchecked")
+    RecipeIndex(Collection<MachineRecipe> recipeCollection) {
+        this.recipes = recipeCollection.toArray(new MachineRecipe[0]);
+        this.requiredItemInputs = new Set[recipes.length][];
+        this.requiredFluidInputs = new Fluid[recipes.length][];
+
+        Map<Item, IntArrayList> itemBuilder = new Reference2ObjectOpenHashMap<>();
+        Map<Fluid, IntArrayList> fluidBuilder = new Reference2ObjectOpenHashMap<>();
+        IntArrayList unconditional = new IntArrayList();
+
+        for (int i = 0; i < recipes.length; ++i) {
+            MachineRecipe recipe = recipes[i];
+            recipesById.putIfAbsent(recipe.getId(), recipe);
+
+            List<Set<Item>> itemInputs = new ArrayList<>();
+            for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+                // An input with an amount of 0 is always satisfied, even if no matching item is
+                // present.
+                if (input.amount > 0) {
+                    Set<Item> items = input.getInputItemSet();
+                    itemInputs.add(items);
+                    for (Item item : items) {
+                        addIndex(itemBuilder.computeIfAbsent(item, it -> new IntArrayList()), i);
+                    }
+                }
+            }
+            List<Fluid> fluidInputs = new ArrayList<>();
+            for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+                if (input.amount > 0) {
+                    fluidInputs.add(input.fluid);
+                    addIndex(fluidBuilder.computeIfAbsent(input.fluid, f -> new IntArrayList()), i);
+                }
+            }
+            requiredItemInputs[i] = itemInputs.toArray(new Set[0]);
+            requiredFluidInputs[i] = fluidInputs.toArray(new Fluid[0]);
+
+            if (itemInputs.isEmpty() && fluidInputs.isEmpty()) {
+                unconditional.add(i);
+            }
+        }
+
+        this.recipesByItem = freeze(itemBuilder);
+        this.recipesByFluid = freeze(fluidBuilder);
+        this.unconditionalRecipes = unconditional.toIntArray();
+    }
+
+    /**
+     * Add a recipe index to a list, unless it was just added by another input of
+     * the same recipe. Since recipes are indexed in order, this keeps the lists
+     * sorted and without duplicates.
+     */
+    private static void addIndex(IntArrayList list, int recipeIndex) {
+        if (list.isEmpty() || list.getInt(list.size() - 1) != recipeIndex) {
+            list.add(recipeIndex);
+        }
+    }
+
+    private static <T> Map<T, int[]> freeze(Map<T, IntArrayList> builder) {
+        Map<T, int[]> frozen = new Reference2ObjectOpenHashMap<>(builder.size());
+        for (Map.Entry<T, IntArrayList> entry : builder.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().toIntArray());
+        }
+        return frozen;
+    }
+
+    MachineRecipe getRecipe(Identifier id) {
+        return recipesById.get(id);
+    }
+
+    /**
+     * Return the recipes for which every input can be found in the given items and
+     * fluids, in the order of the recipe collection this index was built from.
+     */
+    List<MachineRecipe> getMatchingRecipes(Set<Item> items, Set<Fluid> fluids) {
+        BitSet candidates = new BitSet(recipes.length);
+        mark(candidates, unconditionalRecipes);
+        for (Item item : items) {
+            mark(candidates, recipesByItem.getOrDefault(item, NO_RECIPES));
+        }
+        for (Fluid fluid : fluids) {
+            mark(candidates, recipesByFluid.getOrDefault(fluid, NO_RECIPES));
+        }
+
+        List<MachineRecipe> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (inputsPresent(i, items, fluids)) {
+                result.add(recipes[i]);
+            }
+        }
+        return result;
+    }
+
+    private static void mark(BitSet candidates, int[] recipeIndices) {
+        for (int recipeIndex : recipeIndices) {
+            candidates.set(recipeIndex);
+        }
+    }
+
+    private boolean inputsPresent(int recipeIndex, Set<Item> items, Set<Fluid> fluids) {
+        for (Fluid fluid : requiredFluidInputs[recipeIndex]) {
+            if (!fluids.contains(fluid)) {
+                return false;
+            }
+        }
+        outer: for (Set<Item> inputItems : requiredItemInputs[recipeIndex]) {
+            // Iterate over the smaller set
+            if (items.size() <= inputItems.size()) {
+                for (Item item : items) {
+                    if (inputItems.contains(item)) {
+                        continue outer;
+                    }
+                }
+            } else {
+                for (Item item : inputItems) {
+                    if (items.contains(item)) {
+                        continue outer;
+                    }
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.recipe;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.recipe.Ingredient;
+
+/**
+ * Deduplicates the ingredients of machine recipes while a recipe sync packet is
+ * written or read. Many generated recipes use the same tag ingredients, so each
+ * distinct ingredient is only written the first time it is encountered, and is
+ * referenced by its index afterwards. The client then shares a single
+ * {@link Ingredient} instance between all the recipes that use it.
+ *
+ * <p>
+ * The table is filled while the packet is written, so there is no need to send
+ * it separately: an index equal to the current size of the table means that a
+ * new ingredient follows.
+ */
+public final class RecipeSyncIngredients {
+    private static final ThreadLocal<Writer> WRITER = new ThreadLocal<>();
+    private static final ThreadLocal<List<Ingredient>> READER = new ThreadLocal<>();
+
+    private RecipeSyncIngredients() {
+    }
+
+    /**
+     * Start deduplicating the ingredients written by this thread. Must be followed
+     * by {@link #endWrite}.
+     */
+    public static void startWrite() {
+        WRITER.set(new Writer());
+    }
+
+    public static void endWrite() {
+        WRITER.remove();
+    }
+
+    /**
+     * Start resolving the ingredient indices read by this thread. Must be followed
+     * by {@link #endRead}.
+     */
+    public static void startRead() {
+        READER.set(new ArrayList<>());
+    }
+
+    public static void endRead() {
+        READER.remove();
+    }
+
+    static void write(PacketByteBuf buf, Ingredient ingredient) {
+        Writer writer = WRITER.get();
+        if (writer == null) {
+            ingredient.write(buf);
+            return;
+        }
+
+        PacketByteBuf ingredientBuf = new PacketByteBuf(Unpooled.buffer());
+        ingredient.write(ingredientBuf);
+        byte[] bytes = new byte[ingredientBuf.readableBytes()];
+        ingredientBuf.readBytes(bytes);
+
+        ByteBuffer key = ByteBuffer.wrap(bytes);
+        int index = writer.indices.getInt(key);
+        if (index >= 0) {
+            buf.writeVarInt(index);
+        } else {
+            buf.writeVarInt(writer.indices.size());
+            buf.writeBytes(bytes);
+            writer.indices.put(key, writer.indices.size());
+        }
+    }
+
+    static Ingredient read(PacketByteBuf buf) {
+        List<Ingredient> ingredients = READER.get();
+        if (ingredients == null) {
+            return Ingredient.fromPacket(buf);
+        }
+
+        int index = buf.readVarInt();
+        if (index == ingredients.size()) {
+            ingredients.add(Ingredient.fromPacket(buf));
+        }
+        return ingredients.get(index);
+    }
+
+    private static class Writer {
+        /**
+         * Index of every ingredient that was written, keyed by its serialized form
+         * since ingredients don't implement equals.
+         */
+        private final Object2IntMap<ByteBuffer> indices = new Object2IntOpenHashMap<>();
+
+        private Writer() {
+            indices.defaultReturnValue(-1);
+        }
+    }
+}
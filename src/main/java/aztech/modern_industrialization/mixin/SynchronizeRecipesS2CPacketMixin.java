@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.mixin;
+
+import aztech.modern_industrialization.machines.recipe.RecipeSyncIngredients;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.SynchronizeRecipesS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Deduplicate the ingredients of the machine recipes across the whole packet.
+ */
+@Mixin(SynchronizeRecipesS2CPacket.class)
+public class SynchronizeRecipesS2CPacketMixin {
+    @Inject(method = "<init>(Lnet/minecraft/network/PacketByteBuf;)V", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/network/PacketByteBuf;readList(Ljava/util/function/Function;)Ljava/util/List;"))
+    private void startRead(PacketByteBuf buf, CallbackInfo ci) {
+        RecipeSyncIngredients.startRead();
+    }
+
+    @Inject(method = "<init>(Lnet/minecraft/network/PacketByteBuf;)V", at = @At("RETURN"))
+    private void endRead(PacketByteBuf buf, CallbackInfo ci) {
+        RecipeSyncIngredients.endRead();
+    }
+
+    @Inject(method = "write", at = @At("HEAD"))
+    private void startWrite(PacketByteBuf buf, CallbackInfo ci) {
+        RecipeSyncIngredients.startWrite();
+    }
+
+    @Inject(method = "write", at = @At("RETURN"))
+    private void endWrite(PacketByteBuf buf, CallbackInfo ci) {
+        RecipeSyncIngredients.endWrite();
+    }
+}
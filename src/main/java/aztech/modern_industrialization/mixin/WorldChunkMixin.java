@@ -26,7 +26,6 @@ package aztech.modern_industrialization.mixin;
 import aztech.modern_industrialization.machines.multiblocks.world.ChunkEventListeners;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.WorldChunk;
 import org.spongepowered.asm.mixin.Final;
@@ -42,15 +41,13 @@ public class WorldChunkMixin {
     @Final
     private World world;
 
-    @Shadow
-    @Final
-    private ChunkPos pos;
-
     @SuppressWarnings("rawtypes")
     @Inject(method = "setBlockState", at = @At("HEAD"))
     private void onSetBlockState(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable cir) {
         if (!world.isClient()) {
-            ChunkEventListeners.onBlockStateChange(world, this.pos, pos);
+            ChunkEventListeners.onBlockStateChange(world, pos);
+        } else {
+            ChunkEventListeners.onClientBlockChange(world, pos);
         }
     }
 }
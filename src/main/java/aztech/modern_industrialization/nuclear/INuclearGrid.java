@@ -23,27 +23,34 @@
  */
 package aztech.modern_industrialization.nuclear;
 
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Access to the hatches of a nuclear reactor, used by
+ * {@link NuclearGridSimulation}.
+ */
 public interface INuclearGrid {
 
     int getSizeX();
 
     int getSizeY();
 
-    boolean isFuel(int x, int y);
-
-    double sendNeutron(int x, int y, int neutron);
+    boolean ok(int x, int y);
 
-    double getFracDiffusedNeutron(int i, int j);
+    boolean hasHatch(int x, int y);
 
-    double getNeutronDiffusionAnisotropy(int x, int y, int angle);
+    /**
+     * @return The stack in the hatch if it is a nuclear component, or null.
+     */
+    @Nullable
+    ItemStack getNuclearComponent(int x, int y);
 
     double getTemperature(int x, int y);
 
-    boolean ok(int x, int y);
-
-    double getHeatTransferCoeff(int x, int y);
+    double getMaxTemperature(int x, int y);
 
     void setTemperature(int x, int y, double temp);
 
-    void tick(int x, int y);
+    void setRemainingDesintegrations(int x, int y, int desRem);
 }
@@ -0,0 +1,290 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.nuclear;
+
+import static aztech.modern_industrialization.machines.blockentities.hatches.NuclearHatch.BASE_HEAT_CONDUCTION;
+
+import aztech.modern_industrialization.machines.blockentities.hatches.NuclearHatch;
+import java.util.Arrays;
+import java.util.Random;
+import net.minecraft.item.ItemStack;
+
+/**
+ * Simulation of a nuclear reactor on flat arrays. The cell at (x, y) is stored
+ * at index {@code x * sizeY + y}. The components of the hatches are only read
+ * again after {@link #invalidateComponents()}, the temperatures are read once
+ * per tick, and only the values that changed are written back to the grid.
+ */
+public class NuclearGridSimulation {
+
+    private static final int[] dX = { 1, 0, -1, 0 };
+    private static final int[] dY = { 0, 1, 0, -1 };
+
+    private static final Random rand = new Random();
+
+    private final INuclearGrid grid;
+    private final int sizeX;
+    private final int sizeY;
+    private final int size;
+
+    // Layout
+    private final boolean[] ok;
+    // The 4 neighbors of every cell, or -1 if the neighbor is not ok
+    private final int[] neighbors;
+
+    // Components, only updated when they were invalidated
+    private boolean componentsValid = false;
+    private final boolean[] hasHatch;
+    private final double[] maxTemperature;
+    private final double[] heatTransferCoeff;
+    private final double[] fracDiffusedNeutron;
+    // 3 values per cell, one for every angle
+    private final double[] neutronDiffusionAnisotropy;
+    private final boolean[] isFuel;
+    private final int[] desintegrationByNeutron;
+    private final double[] temperatureByDesintegration;
+    private final double[] neutronByDesintegration;
+    private final int[] remainingDesintegrations;
+    private final boolean[] remainingDesintegrationsChanged;
+
+    // Per tick
+    private final double[] initialTemperature;
+    private final double[] temperature;
+    private final double[] temperatureDelta;
+    private final double[] neutronsReceived;
+
+    public NuclearGridSimulation(INuclearGrid grid) {
+        this.grid = grid;
+        this.sizeX = grid.getSizeX();
+        this.sizeY = grid.getSizeY();
+        this.size = sizeX * sizeY;
+
+        this.ok = new boolean[size];
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                ok[i * sizeY + j] = grid.ok(i, j);
+            }
+        }
+        this.neighbors = new int[4 * size];
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                for (int k = 0; k < 4; k++) {
+                    int i2 = i + dX[k];
+                    int j2 = j + dY[k];
+                    boolean neighborOk = i2 >= 0 && j2 >= 0 && i2 < sizeX && j2 < sizeY && ok[i2 * sizeY + j2];
+                    neighbors[4 * (i * sizeY + j) + k] = neighborOk ? i2 * sizeY + j2 : -1;
+                }
+            }
+        }
+
+        this.hasHatch = new boolean[size];
+        this.maxTemperature = new double[size];
+        this.heatTransferCoeff = new double[size];
+        this.fracDiffusedNeutron = new double[size];
+        this.neutronDiffusionAnisotropy = new double[3 * size];
+        this.isFuel = new boolean[size];
+        this.desintegrationByNeutron = new int[size];
+        this.temperatureByDesintegration = new double[size];
+        this.neutronByDesintegration = new double[size];
+        this.remainingDesintegrations = new int[size];
+        this.remainingDesintegrationsChanged = new boolean[size];
+
+        this.initialTemperature = new double[size];
+        this.temperature = new double[size];
+        this.temperatureDelta = new double[size];
+        this.neutronsReceived = new double[size];
+    }
+
+    /**
+     * Read the components of the hatches again before the next tick. Must be
+     * called when the content of a hatch changes.
+     */
+    public void invalidateComponents() {
+        componentsValid = false;
+    }
+
+    private void readComponents() {
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                int c = i * sizeY + j;
+                if (!ok[c]) {
+                    continue;
+                }
+                hasHatch[c] = grid.hasHatch(i, j);
+                maxTemperature[c] = hasHatch[c] ? grid.getMaxTemperature(i, j) : 0;
+
+                ItemStack stack = hasHatch[c] ? grid.getNuclearComponent(i, j) : null;
+                if (stack != null) {
+                    NuclearComponent component = (NuclearComponent) stack.getItem();
+                    heatTransferCoeff[c] = BASE_HEAT_CONDUCTION + component.heatConduction;
+                    fracDiffusedNeutron[c] = 1.0 - component.neutronBehaviour.getNeutronAbs();
+                    for (int angle = 0; angle < 3; angle++) {
+                        neutronDiffusionAnisotropy[3 * c + angle] = component.neutronBehaviour.getNeutronDiff(angle);
+                    }
+                } else {
+                    heatTransferCoeff[c] = hasHatch[c] ? BASE_HEAT_CONDUCTION : 0;
+                    fracDiffusedNeutron[c] = 0;
+                    for (int angle = 0; angle < 3; angle++) {
+                        neutronDiffusionAnisotropy[3 * c + angle] = angle == 2 ? 1.0 : 0;
+                    }
+                }
+
+                isFuel[c] = stack != null && stack.getItem() instanceof NuclearFuel;
+                if (isFuel[c]) {
+                    NuclearFuel fuel = (NuclearFuel) stack.getItem();
+                    desintegrationByNeutron[c] = fuel.desintegrationByNeutron;
+                    temperatureByDesintegration[c] = (double) fuel.euByDesintegration / NuclearHatch.EU_PER_DEGREE;
+                    neutronByDesintegration[c] = fuel.neutronByDesintegration;
+                    remainingDesintegrations[c] = fuel.getRemDes(stack);
+                }
+            }
+        }
+        componentsValid = true;
+    }
+
+    private static int doubleToInt(double d) {
+        int floor = (int) Math.floor(d);
+        return floor + (rand.nextDouble() < (d - floor) ? 1 : 0);
+    }
+
+    private static int getAngle(int from, int to) {
+        if (from == to) {
+            return 2;
+        } else if ((from + 2) % 4 == to) {
+            return 0;
+        }
+        return 1;
+
+    }
+
+    public void tick() {
+        if (!componentsValid) {
+            readComponents();
+        }
+
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                int c = i * sizeY + j;
+                temperature[c] = hasHatch[c] ? grid.getTemperature(i, j) : 0;
+                initialTemperature[c] = temperature[c];
+            }
+        }
+        Arrays.fill(temperatureDelta, 0);
+        Arrays.fill(neutronsReceived, 0);
+
+        // HEAT
+        for (int c = 0; c < size; c++) {
+            if (!ok[c]) {
+                continue;
+            }
+            double temperatureA = temperature[c];
+            // compute the heat going out of the cell = dT * coef
+            double out = 0;
+            for (int k = 0; k < 4; k++) {
+                int c2 = neighbors[4 * c + k];
+                if (c2 >= 0 && temperatureA > temperature[c2]) {
+                    out += (temperatureA - temperature[c2]) * 0.5 * (heatTransferCoeff[c] + heatTransferCoeff[c2]);
+                }
+            }
+            // clamp to avoid reaching < 0 temperatures
+            temperatureDelta[c] -= Math.min(temperatureA, out);
+            double frac = Math.min(1, temperatureA / out);
+            for (int k = 0; k < 4; k++) {
+                int c2 = neighbors[4 * c + k];
+                if (c2 >= 0 && temperatureA > temperature[c2]) {
+                    temperatureDelta[c2] += frac * (temperatureA - temperature[c2]) * 0.5 * (heatTransferCoeff[c] + heatTransferCoeff[c2]);
+                }
+            }
+        }
+        for (int c = 0; c < size; c++) {
+            if (ok[c]) {
+                temperature[c] = clampTemperature(c, temperature[c] + temperatureDelta[c]);
+            }
+        }
+
+        // NEUTRONS
+        for (int c = 0; c < size; c++) {
+            if (ok[c] && isFuel[c]) {
+                double neutronProduced = sendNeutron(c, 1);
+                for (int k = 0; k < 4; k++) {
+                    int c2 = neighbors[4 * c + k];
+                    if (c2 >= 0) {
+                        double neutronDiffused = fracDiffusedNeutron[c2];
+                        neutronsReceived[c2] += 0.25 * (1 - neutronDiffused) * neutronProduced;
+                        for (int l = 0; l < 4; l++) {
+                            int c3 = neighbors[4 * c2 + l];
+                            if (c3 >= 0) {
+                                neutronsReceived[c3] += 0.25 * 0.25 * neutronDiffused * neutronProduced
+                                        * neutronDiffusionAnisotropy[3 * c2 + getAngle(k, l)];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < size; c++) {
+            if (ok[c] && isFuel[c]) {
+                int neutrons = doubleToInt(neutronsReceived[c]);
+                if (neutrons > 0) {
+                    sendNeutron(c, neutrons);
+                }
+            }
+        }
+
+        // Write back what changed
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                int c = i * sizeY + j;
+                if (!hasHatch[c]) {
+                    continue;
+                }
+                double newTemperature = clampTemperature(c, temperature[c]);
+                if (newTemperature != initialTemperature[c]) {
+                    grid.setTemperature(i, j, newTemperature);
+                }
+                if (remainingDesintegrationsChanged[c]) {
+                    remainingDesintegrationsChanged[c] = false;
+                    grid.setRemainingDesintegrations(i, j, remainingDesintegrations[c]);
+                }
+            }
+        }
+    }
+
+    private double clampTemperature(int c, double temp) {
+        return Math.min(Math.max(temp, 0), maxTemperature[c]);
+    }
+
+    /**
+     * @return The number of neutrons produced by the fuel.
+     */
+    private double sendNeutron(int c, int neutron) {
+        int des = Math.min(neutron * desintegrationByNeutron[c], remainingDesintegrations[c]);
+        if (des > 0) {
+            temperature[c] += des * temperatureByDesintegration[c];
+            remainingDesintegrations[c] -= des;
+            remainingDesintegrationsChanged[c] = true;
+        }
+        return des * neutronByDesintegration[c];
+    }
+}
@@ -39,12 +39,21 @@ public abstract class PipeNetwork {
     public PipeNetworkData data;
     public Map<BlockPos, PipeNetworkNode> nodes = new HashMap<>();
     public boolean ticked = false;
+    /**
+     * The tag this network was last saved to, or null if the network has changed
+     * since.
+     */
+    NbtCompound savedTag = null;
 
     public PipeNetwork(int id, PipeNetworkData data) {
         this.id = id;
         this.data = data;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public void fromTag(NbtCompound tag) {
         id = tag.getInt("id");
         data.fromTag(tag.getCompound("data"));
@@ -60,6 +69,25 @@ public abstract class PipeNetwork {
 
     }
 
+    /**
+     * Mark that the data of this network changed. Only changed networks are
+     * serialized again when the world is saved.
+     */
+    public void markDirty() {
+        savedTag = null;
+        if (manager != null) {
+            manager.markDirty();
+        }
+    }
+
+    /**
+     * Called by the manager when nodes are added to or removed from this network,
+     * or when they are loaded or unloaded.
+     */
+    public void onNodesChanged() {
+
+    }
+
     /**
      * Allow merging networks when the player explicitly requests to do so. When
      * this function is called, it must return a new PipeNetworkData without
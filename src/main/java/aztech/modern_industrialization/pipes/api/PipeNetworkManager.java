@@ -23,21 +23,50 @@
  */
 package aztech.modern_industrialization.pipes.api;
 
+import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.pipes.MIPipes;
 import aztech.modern_industrialization.util.NbtHelper;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.util.*;
+import java.util.function.LongConsumer;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
 
 public class PipeNetworkManager {
+    private static final boolean CHECK_STATE_COHERENCE = FabricLoader.getInstance().isDevelopmentEnvironment();
+
     private Map<BlockPos, PipeNetwork> networkByBlock = new HashMap<>();
     private Map<BlockPos, Set<Direction>> links = new HashMap<>(); // TODO: (de)serialize
     private Set<PipeNetwork> networks = new HashSet<>();
     private int nextNetworkId = 0;
     private PipeNetworkType type;
+    private boolean dirty = false;
+    /**
+     * The nodes of every region. Nodes and links are saved by region, while the
+     * networks themselves are saved with the manager.
+     */
+    private final Long2ObjectMap<Set<BlockPos>> nodesByRegion = new Long2ObjectOpenHashMap<>();
+    private final LongSet dirtyRegions = new LongOpenHashSet();
+    private LongConsumer regionCreatedListener = region -> {
+    };
+    /**
+     * Networks by id, only used to resolve the networks of the nodes when a region
+     * is loaded. Invalidated when networks are created or removed.
+     */
+    private Int2ObjectMap<PipeNetwork> networksById = null;
 
     public PipeNetworkManager(PipeNetworkType type) {
         this.type = type;
@@ -57,15 +86,22 @@ public class PipeNetworkManager {
         BlockPos otherPos = pos.offset(direction);
         links.get(pos).add(direction);
         links.get(otherPos).add(direction.getOpposite());
+        markNodeDirty(pos);
+        markNodeDirty(otherPos);
 
-        // If the networks are different, we merge all nodes into `network`. We don't
-        // change other links.
+        // If the networks are different, we merge all nodes into the larger network,
+        // to move as few nodes as possible. We don't change other links.
         PipeNetwork network = networkByBlock.get(pos);
         PipeNetwork otherNetwork = networkByBlock.get(otherPos);
         if (network != otherNetwork) {
-            if (!network.data.equals(otherNetwork.data)) {
-                network.data = network.merge(otherNetwork);
+            PipeNetworkData mergedData = network.data.equals(otherNetwork.data) ? network.data : network.merge(otherNetwork);
+            if (network.nodes.size() < otherNetwork.nodes.size()) {
+                PipeNetwork tmp = network;
+                network = otherNetwork;
+                otherNetwork = tmp;
             }
+            network.data = mergedData;
+            network.markDirty();
             for (Map.Entry<BlockPos, PipeNetworkNode> entry : otherNetwork.nodes.entrySet()) {
                 PipeNetworkNode node = entry.getValue();
                 BlockPos nodePos = entry.getKey();
@@ -74,8 +110,11 @@ public class PipeNetworkManager {
                 }
                 networkByBlock.put(nodePos, network);
                 network.nodes.put(nodePos, node);
+                markNodeDirty(nodePos);
             }
             networks.remove(otherNetwork);
+            networksById = null;
+            network.onNodesChanged();
         }
         checkStateCoherence();
     }
@@ -92,47 +131,86 @@ public class PipeNetworkManager {
         BlockPos otherPos = pos.offset(direction);
         links.get(pos).remove(direction);
         links.get(otherPos).remove(direction.getOpposite());
+        markNodeDirty(pos);
+        markNodeDirty(otherPos);
 
-        // Run a DFS to mark all disconnected nodes.
+        // Search from both ends of the removed link. If the searches meet, the network
+        // is still connected. Otherwise, the smaller component is moved to a new
+        // network.
         PipeNetwork network = networkByBlock.get(pos);
-        Map<BlockPos, PipeNetworkNode> unvisitedNodes = new HashMap<>(network.nodes);
-
-        class Dfs {
-            private void dfs(BlockPos currentPos) {
-                // warning: don't try to use the return value of Map#remove, because it might be
-                // null if the node is not loaded.
-                if (!unvisitedNodes.containsKey(currentPos)) {
-                    return;
-                }
-                unvisitedNodes.remove(currentPos);
-                for (Direction direction : links.get(currentPos)) {
-                    dfs(currentPos.offset(direction));
-                }
-            }
-        }
+        Set<BlockPos> disconnectedNodes = findSmallerComponent(pos, otherPos);
 
-        // Try to put all nodes in the current network
-        Dfs dfs = new Dfs();
-        dfs.dfs(pos);
-
-        // If it was not possible, create a new network and transfer all unvisitedNodes
-        // to it.
-        if (unvisitedNodes.size() > 0) {
+        if (disconnectedNodes != null) {
             PipeNetwork newNetwork = createNetwork(network.data.clone());
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : unvisitedNodes.entrySet()) {
-                PipeNetworkNode node = entry.getValue();
-                BlockPos nodePos = entry.getKey();
+            for (BlockPos nodePos : disconnectedNodes) {
+                // warning: the node might be null if it is not loaded.
+                PipeNetworkNode node = network.nodes.remove(nodePos);
                 if (node != null) {
                     node.network = newNetwork;
                 }
                 networkByBlock.put(nodePos, newNetwork);
                 newNetwork.nodes.put(nodePos, node);
-                network.nodes.remove(nodePos);
+                markNodeDirty(nodePos);
             }
+            network.onNodesChanged();
+            newNetwork.onNodesChanged();
         }
         checkStateCoherence();
     }
 
+    /**
+     * Run a breadth-first search from both positions at the same time, expanding
+     * one node on each side in turn. This way, the search stops as soon as the
+     * smaller component has been fully visited, or as soon as both searches meet.
+     *
+     * @return null if both positions are connected, or the positions of the
+     *         smaller component otherwise.
+     */
+    private Set<BlockPos> findSmallerComponent(BlockPos first, BlockPos second) {
+        Set<BlockPos> firstVisited = new HashSet<>();
+        Set<BlockPos> secondVisited = new HashSet<>();
+        ArrayDeque<BlockPos> firstQueue = new ArrayDeque<>();
+        ArrayDeque<BlockPos> secondQueue = new ArrayDeque<>();
+        firstVisited.add(first);
+        firstQueue.add(first);
+        secondVisited.add(second);
+        secondQueue.add(second);
+
+        while (true) {
+            if (firstQueue.isEmpty()) {
+                return firstVisited;
+            }
+            if (expandSearch(firstQueue, firstVisited, secondVisited)) {
+                return null;
+            }
+            if (secondQueue.isEmpty()) {
+                return secondVisited;
+            }
+            if (expandSearch(secondQueue, secondVisited, firstVisited)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Visit the neighbors of the next node in the queue.
+     *
+     * @return true if a node visited by the other search was reached.
+     */
+    private boolean expandSearch(ArrayDeque<BlockPos> queue, Set<BlockPos> visited, Set<BlockPos> otherVisited) {
+        BlockPos currentPos = queue.poll();
+        for (Direction direction : links.get(currentPos)) {
+            BlockPos nextPos = currentPos.offset(direction);
+            if (otherVisited.contains(nextPos)) {
+                return true;
+            }
+            if (visited.add(nextPos)) {
+                queue.add(nextPos);
+            }
+        }
+        return false;
+    }
+
     /**
      * Check if a link exists. A node must exist at pos.
      */
@@ -163,7 +241,9 @@ public class PipeNetworkManager {
         }
         networkByBlock.put(pos.toImmutable(), network);
         network.nodes.put(pos.toImmutable(), node);
+        network.onNodesChanged();
         links.put(pos.toImmutable(), new HashSet<>());
+        addToRegion(pos.toImmutable());
         checkStateCoherence();
     }
 
@@ -177,7 +257,11 @@ public class PipeNetworkManager {
 
         PipeNetwork network = networkByBlock.remove(pos);
         networks.remove(network);
+        networksById = null;
         links.remove(pos);
+        nodesByRegion.get(getRegion(pos)).remove(pos);
+        markNodeDirty(pos);
+        markDirty();
         checkStateCoherence();
     }
 
@@ -199,6 +283,7 @@ public class PipeNetworkManager {
         } else {
             node.network = network;
             network.nodes.put(pos.toImmutable(), node);
+            network.onNodesChanged();
         }
         checkStateCoherence();
     }
@@ -209,6 +294,7 @@ public class PipeNetworkManager {
      */
     public void nodeUnloaded(PipeNetworkNode node, BlockPos pos) {
         node.network.nodes.put(pos.toImmutable(), null);
+        node.network.onNodesChanged();
         checkStateCoherence();
     }
 
@@ -219,7 +305,9 @@ public class PipeNetworkManager {
         PipeNetwork network = type.getNetworkCtor().apply(nextNetworkId, data);
         network.manager = this;
         nextNetworkId++;
+        markDirty();
         networks.add(network);
+        networksById = null;
         checkStateCoherence();
         return network;
     }
@@ -233,6 +321,10 @@ public class PipeNetworkManager {
         }
     }
 
+    /**
+     * Read the networks. The nodes and links must then be read with
+     * {@link #regionFromNbt} for every saved region.
+     */
     public void fromNbt(NbtCompound tag) {
         // networks
         NbtList networksTag = tag.getList("networks", new NbtCompound().getType());
@@ -243,69 +335,303 @@ public class PipeNetworkManager {
             networks.add(network);
         }
 
-        // networkByBlock and links
-        Map<Integer, PipeNetwork> networkIds = new HashMap<>();
-        for (PipeNetwork network : networks) {
-            networkIds.put(network.id, network);
-        }
-        int[] data = tag.getIntArray("networkByBlock");
-        for (int i = 0; i < data.length / 5; i++) {
-            PipeNetwork network = networkIds.get(data[5 * i + 3]);
-            BlockPos pos = new BlockPos(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
-            networkByBlock.put(pos, network);
-            network.nodes.put(pos, null);
-            links.put(pos, new HashSet<Direction>(Arrays.asList(NbtHelper.decodeDirections((byte) data[5 * i + 4]))));
-        }
-
         // nextNetworkId
         nextNetworkId = tag.getInt("nextNetworkId");
+
+        // networkByBlock and links, from older saves that stored the nodes of every
+        // region in the manager
+        if (tag.contains("networkByBlock")) {
+            int[] data = tag.getIntArray("networkByBlock");
+            readNodes(data);
+            // Save every region in the new format
+            dirtyRegions.addAll(nodesByRegion.keySet());
+            dirty = true;
+        }
         checkStateCoherence();
     }
 
+    /**
+     * Serialize the networks. Networks that didn't change since they were last
+     * saved reuse their previous tag. The nodes and links are saved separately by
+     * {@link #regionToTag}.
+     */
     public NbtCompound toTag(NbtCompound tag) {
         // networks
-        List<NbtCompound> networksTags = new ArrayList<>();
+        NbtList networksTag = new NbtList();
         for (PipeNetwork network : networks) {
-            networksTags.add(network.toTag(new NbtCompound()));
+            if (network.savedTag == null) {
+                network.savedTag = network.toTag(new NbtCompound());
+            }
+            networksTag.add(network.savedTag);
         }
-        NbtList networksTag = new NbtList();
-        networksTag.addAll(networksTags);
         tag.put("networks", networksTag);
 
+        // nextNetworkId
+        tag.putInt("nextNetworkId", nextNetworkId);
+        dirty = false;
+        checkStateCoherence();
+        return tag;
+    }
+
+    /**
+     * Read the nodes and links of a region. The networks must have been read
+     * already.
+     */
+    public void regionFromNbt(NbtCompound tag) {
+        readNodes(tag.getIntArray("networkByBlock"));
+    }
+
+    /**
+     * Serialize the nodes and links of a region, and mark it as saved.
+     */
+    public NbtCompound regionToTag(long region, NbtCompound tag) {
         // networkByBlock and links, every entry is identified by five consecutive
         // integers: x, y, z, network id, encoded links
-        int[] networkByBlockData = new int[networkByBlock.size() * 5];
+        Set<BlockPos> regionNodes = nodesByRegion.getOrDefault(region, Collections.emptySet());
+        int[] networkByBlockData = new int[regionNodes.size() * 5];
         int i = 0;
-        for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
-            networkByBlockData[i++] = entry.getKey().getX();
-            networkByBlockData[i++] = entry.getKey().getY();
-            networkByBlockData[i++] = entry.getKey().getZ();
-            networkByBlockData[i++] = entry.getValue().id;
-            networkByBlockData[i++] = NbtHelper.encodeDirections(links.get(entry.getKey()));
+        for (BlockPos pos : regionNodes) {
+            networkByBlockData[i++] = pos.getX();
+            networkByBlockData[i++] = pos.getY();
+            networkByBlockData[i++] = pos.getZ();
+            networkByBlockData[i++] = networkByBlock.get(pos).id;
+            networkByBlockData[i++] = NbtHelper.encodeDirections(links.get(pos));
         }
         tag.putIntArray("networkByBlock", networkByBlockData);
+        dirtyRegions.remove(region);
+        return tag;
+    }
 
-        // nextNetworkId
-        tag.putInt("nextNetworkId", nextNetworkId);
+    private void readNodes(int[] data) {
+        if (networksById == null) {
+            networksById = new Int2ObjectOpenHashMap<>();
+            for (PipeNetwork network : networks) {
+                networksById.put(network.id, network);
+            }
+        }
+        for (int i = 0; i < data.length / 5; i++) {
+            int networkId = data[5 * i + 3];
+            PipeNetwork network = networksById.get(networkId);
+            BlockPos pos = new BlockPos(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
+            if (network == null) {
+                // The regions are not saved atomically with the networks, so a crash can leave
+                // a node whose network was never saved. Recreate the network with default data.
+                ModernIndustrialization.LOGGER.warn("Missing pipe network {} of type {} for the node at {}, recreating it.", networkId,
+                        type.getIdentifier(), pos);
+                network = type.getNetworkCtor().apply(networkId, MIPipes.INSTANCE.getPipeItem(type).defaultData.clone());
+                network.manager = this;
+                networks.add(network);
+                networksById.put(networkId, network);
+                nextNetworkId = Math.max(nextNetworkId, networkId + 1);
+                dirty = true;
+            }
+            networkByBlock.put(pos, network);
+            network.nodes.put(pos, null);
+            links.put(pos, new HashSet<Direction>(Arrays.asList(NbtHelper.decodeDirections((byte) data[5 * i + 4]))));
+            nodesByRegion.computeIfAbsent(getRegion(pos), r -> new HashSet<>()).add(pos);
+        }
+    }
+
+    /**
+     * Make the networks match the links, once every region was loaded. The
+     * networks and the regions are saved separately, so a crash between two saves
+     * can leave links without their opposite link, or nodes whose network doesn't
+     * match their links. Such links are removed, and every connected component of
+     * nodes is then moved to a single network.
+     */
+    public void rebuildNetworks() {
+        boolean changed = false;
+
+        for (Map.Entry<BlockPos, Set<Direction>> entry : links.entrySet()) {
+            BlockPos pos = entry.getKey();
+            Iterator<Direction> iterator = entry.getValue().iterator();
+            while (iterator.hasNext()) {
+                Direction direction = iterator.next();
+                Set<Direction> otherLinks = links.get(pos.offset(direction));
+                if (otherLinks == null || !otherLinks.contains(direction.getOpposite())) {
+                    iterator.remove();
+                    markNodeDirty(pos);
+                    changed = true;
+                }
+            }
+        }
+
+        Set<BlockPos> visited = new HashSet<>();
+        Set<PipeNetwork> usedNetworks = new HashSet<>();
+        Set<PipeNetwork> changedNetworks = new HashSet<>();
+        ArrayDeque<BlockPos> queue = new ArrayDeque<>();
+        List<BlockPos> component = new ArrayList<>();
+        Object2IntOpenHashMap<PipeNetwork> nodeCounts = new Object2IntOpenHashMap<>();
+        for (BlockPos start : links.keySet()) {
+            if (!visited.add(start)) {
+                continue;
+            }
+            component.clear();
+            nodeCounts.clear();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                BlockPos pos = queue.poll();
+                component.add(pos);
+                nodeCounts.addTo(networkByBlock.get(pos), 1);
+                for (Direction direction : links.get(pos)) {
+                    BlockPos nextPos = pos.offset(direction);
+                    if (visited.add(nextPos)) {
+                        queue.add(nextPos);
+                    }
+                }
+            }
+
+            // Keep the network that has the most nodes in the component, unless another
+            // component already kept it
+            PipeNetwork largestNetwork = null;
+            PipeNetwork network = null;
+            int largestCount = 0;
+            int count = 0;
+            for (Object2IntMap.Entry<PipeNetwork> entry : nodeCounts.object2IntEntrySet()) {
+                if (entry.getIntValue() > largestCount) {
+                    largestNetwork = entry.getKey();
+                    largestCount = entry.getIntValue();
+                }
+                if (!usedNetworks.contains(entry.getKey()) && entry.getIntValue() > count) {
+                    network = entry.getKey();
+                    count = entry.getIntValue();
+                }
+            }
+            if (network == null) {
+                network = createNetwork(largestNetwork.data.clone());
+            }
+            usedNetworks.add(network);
+            if (nodeCounts.size() == 1 && nodeCounts.containsKey(network)) {
+                continue;
+            }
+
+            for (PipeNetwork otherNetwork : nodeCounts.keySet()) {
+                if (otherNetwork != network && !network.data.equals(otherNetwork.data)) {
+                    PipeNetworkData mergedData = network.merge(otherNetwork);
+                    if (mergedData != null) {
+                        network.data = mergedData;
+                    }
+                }
+            }
+            network.markDirty();
+            for (BlockPos pos : component) {
+                PipeNetwork oldNetwork = networkByBlock.get(pos);
+                if (oldNetwork != network) {
+                    PipeNetworkNode node = oldNetwork.nodes.remove(pos);
+                    if (node != null) {
+                        node.network = network;
+                    }
+                    networkByBlock.put(pos, network);
+                    network.nodes.put(pos, node);
+                    markNodeDirty(pos);
+                    changedNetworks.add(oldNetwork);
+                }
+            }
+            changedNetworks.add(network);
+            changed = true;
+        }
+
+        changed |= networks.removeIf(network -> network.nodes.isEmpty());
+        for (PipeNetwork network : changedNetworks) {
+            if (networks.contains(network)) {
+                network.onNodesChanged();
+            }
+        }
+        if (changed) {
+            ModernIndustrialization.LOGGER.warn("Pipe networks of type {} didn't match their links, they were rebuilt.", type.getIdentifier());
+            networksById = null;
+            markDirty();
+        }
         checkStateCoherence();
-        return tag;
+    }
+
+    /**
+     * Return the region of a position. Like region files, a region is 32x32
+     * chunks.
+     */
+    public static long getRegion(BlockPos pos) {
+        return ChunkPos.toLong(pos.getX() >> 9, pos.getZ() >> 9);
+    }
+
+    /**
+     * Return a read-only view of the regions that contain or contained nodes.
+     */
+    public LongSet getRegions() {
+        return LongSets.unmodifiable(nodesByRegion.keySet());
+    }
+
+    /**
+     * Return a read-only view of the regions that changed since they were last
+     * saved.
+     */
+    public LongSet getDirtyRegions() {
+        return LongSets.unmodifiable(dirtyRegions);
+    }
+
+    /**
+     * Set the listener that is notified when a node is added to a region that
+     * didn't contain any node yet.
+     */
+    public void setRegionCreatedListener(LongConsumer regionCreatedListener) {
+        this.regionCreatedListener = regionCreatedListener;
+    }
+
+    private void addToRegion(BlockPos pos) {
+        Set<BlockPos> regionNodes = nodesByRegion.get(getRegion(pos));
+        if (regionNodes == null) {
+            regionNodes = new HashSet<>();
+            nodesByRegion.put(getRegion(pos), regionNodes);
+            // The list of regions is saved with the networks
+            markDirty();
+            regionCreatedListener.accept(getRegion(pos));
+        }
+        regionNodes.add(pos);
+        markNodeDirty(pos);
+    }
+
+    private void markNodeDirty(BlockPos pos) {
+        dirtyRegions.add(getRegion(pos));
+    }
+
+    /**
+     * Mark that the networks must be saved again. This is called by the networks
+     * when their data changes.
+     */
+    void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Return true if the networks changed since they were last saved.
+     */
+    public boolean isDirty() {
+        return dirty;
     }
 
     public PipeNetworkType getType() {
         return type;
     }
 
+    /**
+     * Return a read-only view of the links of a node. The view must not be used
+     * after the links of the node have been modified.
+     */
     public Set<Direction> getNodeLinks(BlockPos pos) {
-        return new HashSet<>(links.get(pos));
+        return Collections.unmodifiableSet(links.get(pos));
     }
 
     /**
-     * Check all internal state coherence for debugging purposes.
+     * Check all internal state coherence for debugging purposes. This iterates over
+     * every node, so it only runs in a development environment.
      */
     public void checkStateCoherence() {
+        if (!CHECK_STATE_COHERENCE)
+            return;
+
         customAssert(networkByBlock.keySet().equals(links.keySet()));
         for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
             customAssert(networks.contains(entry.getValue()));
+            customAssert(nodesByRegion.get(getRegion(entry.getKey())).contains(entry.getKey()));
             PipeNetworkNode node = entry.getValue().nodes.get(entry.getKey());
             customAssert(node == null || node.network == entry.getValue());
         }
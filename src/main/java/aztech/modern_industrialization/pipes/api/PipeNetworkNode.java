@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.pipes.api;
 
+import aztech.modern_industrialization.debug.TickProfiler;
 import aztech.modern_industrialization.pipes.gui.IPipeScreenHandlerHelper;
 import java.util.List;
 import net.fabricmc.fabric.api.screenhandler.v1.ExtendedScreenHandlerFactory;
@@ -34,6 +35,7 @@ import net.minecraft.world.World;
 
 public abstract class PipeNetworkNode {
     protected PipeNetwork network;
+    private boolean needsSave = false;
 
     public abstract void updateConnections(World world, BlockPos pos);
 
@@ -68,7 +70,12 @@ public abstract class PipeNetworkNode {
     }
 
     public void tick(World world, BlockPos pos) {
-        network.tick(world);
+        // Every node of the network calls this, only profile the call that ticks it
+        if (TickProfiler.isEnabled() && !network.ticked) {
+            TickProfiler.tickNetwork(network, world, pos);
+        } else {
+            network.tick(world);
+        }
     }
 
     public NbtCompound writeCustomData() {
@@ -82,6 +89,23 @@ public abstract class PipeNetworkNode {
         return false;
     }
 
+    /**
+     * Mark that the saved state of this node changed, so that its block entity is
+     * saved again.
+     */
+    public final void markDirty() {
+        needsSave = true;
+    }
+
+    /**
+     * Return whether the saved state of this node changed since the last call.
+     */
+    public final boolean checkAndResetDirty() {
+        boolean dirty = needsSave;
+        needsSave = false;
+        return dirty;
+    }
+
     public void appendDroppedStacks(List<ItemStack> droppedStacks) {
     }
 }
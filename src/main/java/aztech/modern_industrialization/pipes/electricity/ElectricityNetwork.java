@@ -26,22 +26,64 @@ package aztech.modern_industrialization.pipes.electricity;
 import aztech.modern_industrialization.api.energy.CableTier;
 import aztech.modern_industrialization.api.energy.EnergyExtractable;
 import aztech.modern_industrialization.api.energy.EnergyInsertable;
+import aztech.modern_industrialization.api.energy.EnergyMoveable;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
-import aztech.modern_industrialization.util.Simulation;
 import java.util.*;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
 
 public class ElectricityNetwork extends PipeNetwork {
     final CableTier tier;
 
+    // The connections of the loaded nodes. They are only rebuilt when a node or a
+    // connection changes.
+    private final List<BlockApiCache<EnergyMoveable, @NotNull Direction>> caches = new ArrayList<>();
+    private final List<Direction> sides = new ArrayList<>();
+    private boolean targetsValid = false;
+    private final EnergyTransferSolver<EnergyInsertable> insertSolver = new EnergyTransferSolver<>(EnergyInsertable::insertEnergy);
+    private final EnergyTransferSolver<EnergyExtractable> extractSolver = new EnergyTransferSolver<>(EnergyExtractable::extractEnergy);
+
+    // Report of the last tick
+    private long lastExtracted = 0;
+    private long lastInserted = 0;
+    private long lastDemand = 0;
+    private Bottleneck lastBottleneck = Bottleneck.DEMAND;
+
     public ElectricityNetwork(int id, PipeNetworkData data, CableTier tier) {
         super(id, data == null ? new ElectricityNetworkData() : data);
         this.tier = tier;
     }
 
+    /**
+     * Rebuild the targets before the next tick.
+     */
+    void invalidateTargets() {
+        targetsValid = false;
+    }
+
+    @Override
+    public void onNodesChanged() {
+        invalidateTargets();
+    }
+
+    private void rebuildTargets(World world) {
+        caches.clear();
+        sides.clear();
+        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+            if (entry.getValue() != null) {
+                ((ElectricityNetworkNode) entry.getValue()).appendTargets(world, entry.getKey(), caches, sides);
+            }
+        }
+        insertSolver.resize(caches.size());
+        extractSolver.resize(caches.size());
+        targetsValid = true;
+    }
+
     @Override
     public void tick(World world) {
         // Only tick once
@@ -49,84 +91,101 @@ public class ElectricityNetwork extends PipeNetwork {
             return;
         ticked = true;
 
+        if (!targetsValid) {
+            rebuildTargets(world);
+        }
+
         // Gather targets
-        List<EnergyInsertable> insertables = new ArrayList<>();
-        List<EnergyExtractable> extractables = new ArrayList<>();
+        for (int i = 0; i < caches.size(); ++i) {
+            EnergyMoveable moveable = caches.get(i).find(sides.get(i));
+            EnergyInsertable insertable = moveable instanceof EnergyInsertable ins && ins.canInsert(tier) ? ins : null;
+            EnergyExtractable extractable = moveable instanceof EnergyExtractable ext && ext.canExtract(tier) ? ext : null;
+            insertSolver.setTarget(i, insertable);
+            extractSolver.setTarget(i, extractable);
+        }
         long networkAmount = 0;
         int loadedNodeCount = 0;
-        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
-            if (entry.getValue() != null) {
-                ElectricityNetworkNode node = (ElectricityNetworkNode) entry.getValue();
-                node.appendAttributes(world, entry.getKey(), insertables, extractables);
-                networkAmount += node.eu;
+        for (PipeNetworkNode node : nodes.values()) {
+            if (node != null) {
+                networkAmount += ((ElectricityNetworkNode) node).eu;
                 loadedNodeCount++;
             }
         }
 
-        // Filter targets
-        insertables.removeIf(insertable -> !insertable.canInsert(tier));
-        extractables.removeIf(extractable -> !extractable.canExtract(tier));
-
         // Do the transfer
         long networkCapacity = loadedNodeCount * tier.getMaxTransfer();
         long extractMaxAmount = Math.min(tier.getMaxTransfer(), networkCapacity - networkAmount);
-        networkAmount += transferForTargets(EnergyExtractable::extractEnergy, extractables, extractMaxAmount);
+        lastExtracted = extractSolver.transfer(extractMaxAmount);
+        networkAmount += lastExtracted;
         long insertMaxAmount = Math.min(tier.getMaxTransfer(), networkAmount);
-        networkAmount -= transferForTargets(EnergyInsertable::insertEnergy, insertables, insertMaxAmount);
+        // Simulate with the cable limit, so that the demand is known even without supply
+        lastInserted = insertSolver.transfer(insertMaxAmount, tier.getMaxTransfer());
+        networkAmount -= lastInserted;
+
+        // Find what limited the transfer
+        lastDemand = insertSolver.lastDemand;
+        if (lastDemand > insertMaxAmount) {
+            lastBottleneck = insertMaxAmount == tier.getMaxTransfer() ? Bottleneck.CABLE : Bottleneck.SUPPLY;
+        } else {
+            lastBottleneck = Bottleneck.DEMAND;
+        }
 
         // Split energy evenly across the nodes
         for (PipeNetworkNode node : nodes.values()) {
             if (node != null) {
                 ElectricityNetworkNode electricityNode = (ElectricityNetworkNode) node;
-                electricityNode.eu = networkAmount / loadedNodeCount;
-                networkAmount -= electricityNode.eu;
+                long newEu = networkAmount / loadedNodeCount;
+                if (electricityNode.eu != newEu) {
+                    electricityNode.eu = newEu;
+                    electricityNode.markDirty();
+                }
+                networkAmount -= newEu;
                 --loadedNodeCount;
             }
         }
     }
 
     /**
-     * Perform a transfer operation across a list of targets. Will not mutate the
-     * list. Does not check for the network's max transfer rate specifically.
+     * @return The amount of energy that was extracted into the network last tick.
      */
-    private static <T> long transferForTargets(TransferOperation<T> operation, List<T> targets, long maxAmount) {
-        // Build target list
-        List<EnergyTarget<T>> sortableTargets = new ArrayList<>(targets.size());
-        for (T target : targets) {
-            sortableTargets.add(new EnergyTarget<>(target));
-        }
-        // Shuffle for better transfer on average
-        Collections.shuffle(sortableTargets);
-        // Simulate the transfer for every target
-        for (EnergyTarget<T> target : sortableTargets) {
-            target.simulationResult = operation.transfer(target.target, maxAmount, Simulation.SIMULATE);
-        }
-        // Sort from low to high result
-        sortableTargets.sort(Comparator.comparing(t -> t.simulationResult));
-        // Actually perform the transfer
-        long transferredAmount = 0;
-        for (int i = 0; i < sortableTargets.size(); ++i) {
-            EnergyTarget<T> target = sortableTargets.get(i);
-            int remainingTargets = sortableTargets.size() - i;
-            long remainingAmount = maxAmount - transferredAmount;
-            long targetMaxAmount = remainingAmount / remainingTargets;
-
-            transferredAmount += operation.transfer(target.target, targetMaxAmount, Simulation.ACT);
-        }
-        return transferredAmount;
+    public long getLastExtracted() {
+        return lastExtracted;
     }
 
-    @FunctionalInterface
-    private interface TransferOperation<T> {
-        long transfer(T transferable, long maxAmount, Simulation simulation);
+    /**
+     * @return The amount of energy that was inserted from the network last tick.
+     */
+    public long getLastInserted() {
+        return lastInserted;
     }
 
-    private static class EnergyTarget<T> {
-        final T target;
-        long simulationResult;
+    /**
+     * @return The amount of energy that the targets could have accepted last tick,
+     *         capped by what the network could offer to each target.
+     */
+    public long getLastDemand() {
+        return lastDemand;
+    }
 
-        EnergyTarget(T target) {
-            this.target = target;
-        }
+    /**
+     * @return What limited the amount of energy inserted last tick.
+     */
+    public Bottleneck getLastBottleneck() {
+        return lastBottleneck;
+    }
+
+    public enum Bottleneck {
+        /**
+         * The targets wanted more than the max transfer of the cable tier.
+         */
+        CABLE,
+        /**
+         * The targets wanted more than the energy stored in the network.
+         */
+        SUPPLY,
+        /**
+         * Every target got what it wanted.
+         */
+        DEMAND,
     }
 }
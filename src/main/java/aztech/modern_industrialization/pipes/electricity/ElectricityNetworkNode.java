@@ -45,20 +45,35 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
     private final List<BlockApiCache<EnergyMoveable, @NotNull Direction>> caches = new ArrayList<>();
     long eu = 0;
 
-    public void appendAttributes(World world, BlockPos pos, List<EnergyInsertable> insertables, List<EnergyExtractable> extractables) {
-        if (caches.size() != connections.size()) {
-            caches.clear();
+    /**
+     * Add the API cache and the queried side of every connection of this node to
+     * the lists.
+     */
+    void appendTargets(World world, BlockPos pos, List<BlockApiCache<EnergyMoveable, @NotNull Direction>> caches, List<Direction> sides) {
+        if (this.caches.size() != connections.size()) {
+            this.caches.clear();
             for (Direction direction : connections) {
-                caches.add(BlockApiCache.create(EnergyApi.MOVEABLE, (ServerWorld) world, pos.offset(direction)));
+                this.caches.add(BlockApiCache.create(EnergyApi.MOVEABLE, (ServerWorld) world, pos.offset(direction)));
             }
         }
         for (int i = 0; i < connections.size(); ++i) {
-            Direction targetDir = connections.get(i).getOpposite();
-            EnergyMoveable moveable = caches.get(i).find(targetDir);
-            if (moveable instanceof EnergyInsertable)
-                insertables.add((EnergyInsertable) moveable);
-            if (moveable instanceof EnergyExtractable)
-                extractables.add((EnergyExtractable) moveable);
+            caches.add(this.caches.get(i));
+            sides.add(connections.get(i).getOpposite());
+        }
+    }
+
+    /**
+     * Must be called when a connection is added or removed.
+     */
+    private void onConnectionsChanged() {
+        markDirty();
+        invalidateCaches();
+    }
+
+    private void invalidateCaches() {
+        caches.clear();
+        if (network != null) {
+            ((ElectricityNetwork) network).invalidateTargets();
         }
     }
 
@@ -71,7 +86,7 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
                 i++;
             } else {
                 connections.remove(i);
-                caches.clear();
+                onConnectionsChanged();
             }
         }
     }
@@ -94,7 +109,7 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
         for (int i = 0; i < connections.size(); i++) {
             if (connections.get(i) == direction) {
                 connections.remove(i);
-                caches.clear();
+                onConnectionsChanged();
                 return;
             }
         }
@@ -111,7 +126,7 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
         // Otherwise try to connect
         if (canConnect(world, pos, direction)) {
             connections.add(direction);
-            caches.clear();
+            onConnectionsChanged();
         }
     }
 
@@ -125,7 +140,8 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
     @Override
     public void fromTag(NbtCompound tag) {
         connections = new ArrayList<>(Arrays.asList(NbtHelper.decodeDirections(tag.getByte("connections"))));
-        caches.clear();
+        // Loading doesn't change the saved state, so the node is not marked dirty
+        invalidateCaches();
         eu = tag.getLong("eu");
     }
 
@@ -148,4 +164,8 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
     public CableTier getTier() {
         return ((ElectricityNetwork) network).tier;
     }
+
+    public ElectricityNetwork getNetwork() {
+        return (ElectricityNetwork) network;
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.pipes.electricity;
+
+import aztech.modern_industrialization.util.Simulation;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Splits an amount of energy evenly across a set of targets. The targets are
+ * kept in slots that are stable across ticks, and all the per-tick state lives
+ * in primitive arrays that are only reallocated when the number of slots
+ * changes.
+ */
+class EnergyTransferSolver<T> {
+    /**
+     * How many ticks a target that could not transfer any energy is skipped for.
+     */
+    private static final int ZERO_DEMAND_SKIP_TICKS = 4;
+    private static final Random RANDOM = new Random();
+
+    private final TransferOperation<T> operation;
+    private Object[] targets = new Object[0];
+    private long[] demands = new long[0];
+    private long[] allocations = new long[0];
+    private int[] skipTicks = new int[0];
+    private int[] order = new int[0];
+    private int size = 0;
+    /**
+     * The sum of the simulated transfers of the last call to
+     * {@link #transfer(long, long)}. Skipped targets count with the demand they
+     * had when they were last simulated.
+     */
+    long lastDemand = 0;
+
+    EnergyTransferSolver(TransferOperation<T> operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Reset the slots. There will be one slot for every index in
+     * {@code [0, size)}.
+     */
+    void resize(int size) {
+        if (targets.length < size) {
+            targets = new Object[size];
+            demands = new long[size];
+            allocations = new long[size];
+            skipTicks = new int[size];
+            order = new int[size];
+        } else {
+            Arrays.fill(targets, null);
+            Arrays.fill(skipTicks, 0);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Set the target of a slot, or null if the slot should be ignored.
+     */
+    void setTarget(int slot, T target) {
+        if (targets[slot] != target) {
+            targets[slot] = target;
+            skipTicks[slot] = 0;
+        }
+    }
+
+    /**
+     * Perform the transfer operation across the targets, trying to give the same
+     * amount to every target.
+     *
+     * @return The amount that was successfully transferred.
+     */
+    long transfer(long maxAmount) {
+        return transfer(maxAmount, maxAmount);
+    }
+
+    /**
+     * Perform the transfer operation across the targets, trying to give the same
+     * amount to every target. The demand of every target is simulated with
+     * {@code maxDemand}, so that {@link #lastDemand} is known even if there is
+     * nothing to transfer.
+     *
+     * @param maxDemand The amount used to simulate, at least {@code maxAmount}.
+     * @return The amount that was successfully transferred.
+     */
+    @SuppressWarnings("unchecked")
+    long transfer(long maxAmount, long maxDemand) {
+        lastDemand = 0;
+        if (maxDemand <= 0) {
+            return 0;
+        }
+
+        // Simulate the transfer for every target that is not skipped
+        int count = 0;
+        for (int i = 0; i < size; ++i) {
+            if (targets[i] == null) {
+                continue;
+            }
+            if (skipTicks[i] > 0) {
+                skipTicks[i]--;
+                lastDemand += demands[i];
+                continue;
+            }
+            long demand = Math.max(0, operation.transfer((T) targets[i], maxDemand, Simulation.SIMULATE));
+            demands[i] = demand;
+            lastDemand += demand;
+            if (demand == 0) {
+                skipTicks[i] = ZERO_DEMAND_SKIP_TICKS;
+                continue;
+            }
+            order[count++] = i;
+        }
+        if (maxAmount <= 0) {
+            return 0;
+        }
+
+        // Compute the even split without sorting. Targets that want less than an even
+        // share get all they want and are moved after the unsaturated targets, then
+        // what is left is split again across the others. Every round only looks at the
+        // targets that are still unsaturated.
+        long remainingAmount = maxAmount;
+        int unsaturated = count;
+        boolean saturatedAny = true;
+        while (saturatedAny && unsaturated > 0) {
+            saturatedAny = false;
+            long share = remainingAmount / unsaturated;
+            for (int k = 0; k < unsaturated;) {
+                int i = order[k];
+                if (demands[i] <= share) {
+                    allocations[i] = demands[i];
+                    remainingAmount -= demands[i];
+                    order[k] = order[--unsaturated];
+                    order[unsaturated] = i;
+                    saturatedAny = true;
+                } else {
+                    k++;
+                }
+            }
+        }
+        if (unsaturated > 0) {
+            // The unsaturated targets share the rest, the remainder is given one by one
+            // from a random start for fairness across ticks
+            long share = remainingAmount / unsaturated;
+            int remainder = (int) (remainingAmount % unsaturated);
+            int start = RANDOM.nextInt(unsaturated);
+            for (int k = 0; k < unsaturated; ++k) {
+                allocations[order[(start + k) % unsaturated]] = share + (k < remainder ? 1 : 0);
+            }
+        }
+
+        // Actually perform the transfer
+        long transferredAmount = 0;
+        boolean shortfall = false;
+        for (int k = 0; k < count; ++k) {
+            int i = order[k];
+            if (allocations[i] == 0) {
+                continue;
+            }
+            long transferred = operation.transfer((T) targets[i], allocations[i], Simulation.ACT);
+            transferredAmount += transferred;
+            shortfall |= transferred < allocations[i];
+        }
+        // A target can accept less than simulated, for example when two targets share
+        // the same storage. Offer what is left to the unsaturated targets.
+        if (shortfall) {
+            for (int k = 0; k < unsaturated && transferredAmount < maxAmount; ++k) {
+                transferredAmount += operation.transfer((T) targets[order[k]], maxAmount - transferredAmount, Simulation.ACT);
+            }
+        }
+        return transferredAmount;
+    }
+
+    @FunctionalInterface
+    interface TransferOperation<T> {
+        long transfer(T transferable, long maxAmount, Simulation simulation);
+    }
+}
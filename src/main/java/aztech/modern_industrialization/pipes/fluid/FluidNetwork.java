@@ -26,6 +26,9 @@ package aztech.modern_industrialization.pipes.fluid;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
+import aztech.modern_industrialization.util.StorageUtil2;
+import com.google.common.base.MoreObjects;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -45,6 +48,46 @@ public class FluidNetwork extends PipeNetwork {
         this.nodeCapacity = nodeCapacity;
     }
 
+    // The targets of this network, sorted by decreasing priority. They are only
+    // rebuilt when a node, a connection or a priority changes.
+    private final List<FluidTarget> targets = new ArrayList<>();
+    // The start of every priority bucket in the target list, followed by the size
+    // of the list.
+    private int[] bucketStarts = new int[] { 0 };
+    private boolean targetsValid = false;
+
+    /**
+     * Rebuild the targets before the next tick.
+     */
+    void invalidateTargets() {
+        targetsValid = false;
+    }
+
+    @Override
+    public void onNodesChanged() {
+        invalidateTargets();
+    }
+
+    private void rebuildTargets(World world) {
+        targets.clear();
+        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+            if (entry.getValue() != null) {
+                ((FluidNetworkNode) entry.getValue()).appendTargets(world, entry.getKey(), targets);
+            }
+        }
+        // Sort by decreasing priority, and precompute the buckets
+        targets.sort(Comparator.comparingInt(target -> -target.priority));
+        IntArrayList starts = new IntArrayList();
+        for (int i = 0; i < targets.size(); ++i) {
+            if (i == 0 || targets.get(i - 1).priority != targets.get(i).priority) {
+                starts.add(i);
+            }
+        }
+        starts.add(targets.size());
+        bucketStarts = starts.toIntArray();
+        targetsValid = true;
+    }
+
     @Override
     public void tick(World world) {
         // Only tick once
@@ -52,22 +95,35 @@ public class FluidNetwork extends PipeNetwork {
             return;
         ticked = true;
 
-        // Gather targets and hopefully set fluid
-        List<FluidTarget> targets = new ArrayList<>();
+        if (!targetsValid) {
+            rebuildTargets(world);
+        }
+
         long networkAmount = 0;
         int loadedNodeCount = 0;
-        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
-            if (entry.getValue() != null) {
-                FluidNetworkNode fluidNode = (FluidNetworkNode) entry.getValue();
-                fluidNode.gatherTargetsAndPickFluid(world, entry.getKey(), targets);
-                // Amount goes after the gather...() call because the gather...() call cleans
-                // invalid amounts.
+        for (PipeNetworkNode node : nodes.values()) {
+            if (node != null) {
+                FluidNetworkNode fluidNode = (FluidNetworkNode) node;
+                fluidNode.cleanInvalidAmount();
                 networkAmount += fluidNode.amount;
                 loadedNodeCount++;
             }
         }
         long networkCapacity = loadedNodeCount * nodeCapacity;
-        FluidKey fluid = ((FluidNetworkData) data).fluid;
+
+        // Refresh the target storages and hopefully set fluid
+        FluidNetworkData data = (FluidNetworkData) this.data;
+        for (FluidTarget target : targets) {
+            target.refreshStorage();
+            if (data.fluid.isEmpty() && target.canExtract && target.storage != null) {
+                // Try to set fluid, will return null if none could be found.
+                data.fluid = MoreObjects.firstNonNull(StorageUtil2.findExtractableResource(target.storage, null), FluidKey.empty());
+                if (!data.fluid.isEmpty()) {
+                    markDirty();
+                }
+            }
+        }
+        FluidKey fluid = data.fluid;
         // If the fluid is EMPTY we stop here
         if (fluid.isEmpty()) {
             return;
@@ -75,9 +131,9 @@ public class FluidNetwork extends PipeNetwork {
 
         try (Transaction transaction = Transaction.openOuter()) {
             // Extract from targets into the network
-            networkAmount += transferByPriority(Storage::extract, targets, fluid, networkCapacity - networkAmount, transaction);
+            networkAmount += transferByPriority(Storage::extract, fluid, networkCapacity - networkAmount, transaction);
             // Insert into the targets from the network
-            networkAmount -= transferByPriority(Storage::insert, targets, fluid, networkAmount, transaction);
+            networkAmount -= transferByPriority(Storage::insert, fluid, networkAmount, transaction);
 
             transaction.commit();
         }
@@ -87,32 +143,28 @@ public class FluidNetwork extends PipeNetwork {
         for (PipeNetworkNode node : nodes.values()) {
             if (node != null) {
                 FluidNetworkNode fluidNode = (FluidNetworkNode) node;
-                fluidNode.amount = networkAmount / loadedNodeCount;
-                networkAmount -= fluidNode.amount;
+                long newAmount = networkAmount / loadedNodeCount;
+                if (fluidNode.amount != newAmount) {
+                    fluidNode.amount = newAmount;
+                    fluidNode.markDirty();
+                }
+                networkAmount -= newAmount;
                 loadedNodeCount--;
             }
         }
     }
 
     /**
-     * Perform a transfer operation for a priority bucket, starting with higher
+     * Perform a transfer operation for every priority bucket, starting with higher
      * priority targets.
      *
      * @return The amount that was successfully transferred.
      */
-    private static long transferByPriority(TransferOperation operation, List<FluidTarget> targets, FluidKey fluid, long maxAmount,
-            Transaction transaction) {
-        // Sort by decreasing priority
-        targets.sort(Comparator.comparing(target -> -target.priority));
-        // Transfer for each bucket
+    private long transferByPriority(TransferOperation operation, FluidKey fluid, long maxAmount, Transaction transaction) {
         long transferredAmount = 0;
-        int bucketStart = 0;
-        for (int i = 0; i < targets.size(); ++i) {
-            if (i == targets.size() - 1 || targets.get(bucketStart).priority != targets.get(i + 1).priority) {
-                transferredAmount += transferForBucket(operation, targets.subList(bucketStart, i + 1), fluid, maxAmount - transferredAmount,
-                        transaction);
-                bucketStart = i + 1;
-            }
+        for (int i = 0; i + 1 < bucketStarts.length; ++i) {
+            List<FluidTarget> bucket = targets.subList(bucketStarts[i], bucketStarts[i + 1]);
+            transferredAmount += transferForBucket(operation, bucket, fluid, maxAmount - transferredAmount, transaction);
         }
         return transferredAmount;
     }
@@ -130,16 +182,23 @@ public class FluidNetwork extends PipeNetwork {
         Collections.shuffle(bucket);
         // Simulate the transfer for every target
         for (FluidTarget target : bucket) {
+            if (target.storage == null) {
+                target.simulationResult = 0;
+                continue;
+            }
             try (Transaction nested = transaction.openNested()) {
                 target.simulationResult = operation.transfer(target.storage, fluid, maxAmount, nested);
             }
         }
         // Sort from low result to high result
-        bucket.sort(Comparator.comparing(target -> target.simulationResult));
+        bucket.sort(Comparator.comparingLong(target -> target.simulationResult));
         // Actually perform the transfer
         long transferredAmount = 0;
         for (int i = 0; i < bucket.size(); ++i) {
             FluidTarget target = bucket.get(i);
+            if (target.storage == null) {
+                continue;
+            }
             int remainingTargets = bucket.size() - i;
             long remainingAmount = maxAmount - transferredAmount;
             long targetMaxAmount = remainingAmount / remainingTargets;
@@ -190,6 +249,7 @@ public class FluidNetwork extends PipeNetwork {
     protected void setFluid(FluidKey fluid) {
         if (((FluidNetworkData) data).fluid.isEmpty()) {
             ((FluidNetworkData) data).fluid = fluid;
+            markDirty();
         }
     }
 
@@ -206,7 +266,9 @@ public class FluidNetwork extends PipeNetwork {
         // Clear
         for (PipeNetworkNode node : nodes.values()) {
             ((FluidNetworkNode) node).amount = 0;
+            node.markDirty();
         }
         ((FluidNetworkData) data).fluid = FluidKey.empty();
+        markDirty();
     }
 }
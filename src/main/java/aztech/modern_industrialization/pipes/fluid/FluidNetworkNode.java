@@ -29,12 +29,9 @@ import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.pipes.api.PipeEndpointType;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
 import aztech.modern_industrialization.pipes.gui.IPipeScreenHandlerHelper;
-import aztech.modern_industrialization.util.EmptyStorage;
-import aztech.modern_industrialization.util.IoStorage;
 import aztech.modern_industrialization.util.NbtHelper;
-import aztech.modern_industrialization.util.StorageUtil2;
-import com.google.common.base.MoreObjects;
 import java.util.*;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
 import net.fabricmc.fabric.api.screenhandler.v1.ExtendedScreenHandlerFactory;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
@@ -46,12 +43,14 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 // LBA
@@ -62,40 +61,45 @@ public class FluidNetworkNode extends PipeNetworkNode {
     private boolean needsSync = false;
 
     /**
-     * Add all valid targets to the target list, and pick the fluid for the network
-     * if no fluid is set.
+     * Delete the fluid that this node cannot contain.
      */
-    void gatherTargetsAndPickFluid(World world, BlockPos pos, List<FluidTarget> targets) {
+    void cleanInvalidAmount() {
         FluidNetworkData data = (FluidNetworkData) network.data;
         FluidNetwork network = (FluidNetwork) this.network;
 
         if (amount > network.nodeCapacity) {
             ModernIndustrialization.LOGGER.warn("Fluid amount > nodeCapacity, deleting some fluid!");
             amount = network.nodeCapacity;
+            markDirty();
         }
         if (amount > 0 && data.fluid.isEmpty()) {
             ModernIndustrialization.LOGGER.warn("Amount > 0 but fluid is empty, deleting some fluid!");
             amount = 0;
+            markDirty();
         }
+    }
 
+    /**
+     * Add a target for every connection of this node to the target list.
+     */
+    void appendTargets(World world, BlockPos pos, List<FluidTarget> targets) {
         for (FluidConnection connection : connections) {
-            Storage<FluidKey> storage = getNeighborStorage(world, pos, connection);
-            if (data.fluid.isEmpty() && connection.canExtract()) {
-                // Try to set fluid, will return null if none could be found.
-                data.fluid = MoreObjects.firstNonNull(StorageUtil2.findExtractableResource(storage, null), FluidKey.empty());
+            if (connection.cache == null) {
+                connection.cache = BlockApiCache.create(FluidStorage.SIDED, (ServerWorld) world, pos.offset(connection.direction));
             }
-            targets.add(new FluidTarget(connection.priority, new IoStorage<>(storage, connection.canInsert(), connection.canExtract())));
+            targets.add(new FluidTarget(connection.priority, connection.canInsert(), connection.canExtract(), connection.cache,
+                    connection.direction.getOpposite()));
         }
     }
 
-    Storage<FluidKey> getNeighborStorage(World world, BlockPos pos, FluidConnection connection) {
-        Storage<FluidKey> storage = FluidStorage.SIDED.find(world, pos.offset(connection.direction), connection.direction.getOpposite());
-        if (storage != null) {
-            if ((connection.canExtract() && storage.supportsExtraction()) || (connection.canInsert() && storage.supportsInsertion())) {
-                return storage;
-            }
+    /**
+     * Must be called when a connection is added, removed or modified.
+     */
+    private void onConnectionsChanged() {
+        markDirty();
+        if (network != null) {
+            ((FluidNetwork) network).invalidateTargets();
         }
-        return new EmptyStorage<>();
     }
 
     @Override
@@ -108,6 +112,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
                 i++;
             } else {
                 connections.remove(i);
+                onConnectionsChanged();
             }
         }
     }
@@ -141,6 +146,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
                     conn.type = BLOCK_OUT;
                 else
                     connections.remove(i);
+                onConnectionsChanged();
                 return;
             }
         }
@@ -157,6 +163,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
         // Otherwise try to connect
         if (canConnect(world, pos, direction)) {
             connections.add(new FluidConnection(direction, BLOCK_IN, 0));
+            onConnectionsChanged();
         }
     }
 
@@ -211,6 +218,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
         private final Direction direction;
         private PipeEndpointType type;
         private int priority;
+        private BlockApiCache<Storage<FluidKey>, @NotNull Direction> cache = null;
 
         private FluidConnection(Direction direction, PipeEndpointType type, int priority) {
             this.direction = direction;
@@ -262,6 +270,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
                     public void setConnectionType(int type) {
                         if (0 <= type && type < 3) {
                             FluidConnection.this.type = decodeConnectionType(type);
+                            onConnectionsChanged();
                             helper.callMarkDirty();
                             helper.callSync();
                         }
@@ -275,6 +284,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
                     @Override
                     public void setPriority(int priority) {
                         FluidConnection.this.priority = priority;
+                        onConnectionsChanged();
                         helper.callMarkDirty();
                     }
 
@@ -23,21 +23,57 @@
  */
 package aztech.modern_industrialization.pipes.fluid;
 
+import aztech.modern_industrialization.util.IoStorage;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidKey;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.minecraft.util.math.Direction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * A target to be used during a transfer operation.
+ * A target to be used during a transfer operation. Targets are kept by the
+ * network until its nodes or connections change, and the neighbor storage is
+ * looked up through a {@link BlockApiCache} every tick.
  */
 class FluidTarget {
     final int priority;
-    final Storage<FluidKey> storage;
+    final boolean canInsert;
+    final boolean canExtract;
+    private final BlockApiCache<Storage<FluidKey>, @NotNull Direction> cache;
+    private final Direction side;
+
+    // The last storage returned by the cache, to only wrap it when it changes
+    private Storage<FluidKey> foundStorage = null;
+    // The neighbor storage restricted to the allowed operations, or null if there
+    // is no usable storage
+    @Nullable
+    Storage<FluidKey> storage = null;
 
     // A temporary value used to sort fluid targets
     long simulationResult;
 
-    public FluidTarget(int priority, Storage<FluidKey> storage) {
+    FluidTarget(int priority, boolean canInsert, boolean canExtract, BlockApiCache<Storage<FluidKey>, @NotNull Direction> cache, Direction side) {
         this.priority = priority;
-        this.storage = storage;
+        this.canInsert = canInsert;
+        this.canExtract = canExtract;
+        this.cache = cache;
+        this.side = side;
+    }
+
+    /**
+     * Update the storage of this target. Must be called once per tick before the
+     * transfer.
+     */
+    void refreshStorage() {
+        Storage<FluidKey> found = cache.find(side);
+        if (found != foundStorage) {
+            foundStorage = found;
+            if (found != null && ((canExtract && found.supportsExtraction()) || (canInsert && found.supportsInsertion()))) {
+                storage = new IoStorage<>(found, canInsert, canExtract);
+            } else {
+                storage = null;
+            }
+        }
     }
 }
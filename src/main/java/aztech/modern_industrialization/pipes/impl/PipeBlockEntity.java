@@ -276,7 +276,14 @@ public class PipeBlockEntity extends FastBlockEntity
                 sync();
             }
         }
-        markDirty();
+        // Network ticks may have changed the state of any node
+        boolean dirty = false;
+        for (PipeNetworkNode pipe : pipes) {
+            dirty |= pipe.checkAndResetDirty();
+        }
+        if (dirty) {
+            markDirty();
+        }
     }
 
     @Override
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.pipes.impl;
+
+import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
+import aztech.modern_industrialization.pipes.api.PipeNetworkType;
+import java.util.Map;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.world.PersistentState;
+
+/**
+ * The nodes and links of every pipe type in a region. Each region is saved to
+ * its own file, and only when one of its nodes changed.
+ */
+class PipeNetworkRegion extends PersistentState {
+    private final PipeNetworks networks;
+    private final long region;
+
+    PipeNetworkRegion(PipeNetworks networks, long region) {
+        this.networks = networks;
+        this.region = region;
+    }
+
+    @Override
+    public boolean isDirty() {
+        if (super.isDirty()) {
+            return true;
+        }
+        for (PipeNetworkManager manager : networks.getManagers().values()) {
+            if (manager.getDirtyRegions().contains(region)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public NbtCompound writeNbt(NbtCompound nbt) {
+        for (Map.Entry<PipeNetworkType, PipeNetworkManager> entry : networks.getManagers().entrySet()) {
+            if (entry.getValue().getRegions().contains(region)) {
+                nbt.put(entry.getKey().getIdentifier().toString(), entry.getValue().regionToTag(region, new NbtCompound()));
+            }
+        }
+        return nbt;
+    }
+
+    static PipeNetworkRegion readNbt(PipeNetworks networks, long region, NbtCompound nbt) {
+        for (Map.Entry<PipeNetworkType, PipeNetworkManager> entry : networks.getManagers().entrySet()) {
+            String tagKey = entry.getKey().getIdentifier().toString();
+            if (nbt.contains(tagKey)) {
+                entry.getValue().regionFromNbt(nbt.getCompound(tagKey));
+            }
+        }
+        return new PipeNetworkRegion(networks, region);
+    }
+}
@@ -25,23 +25,51 @@ package aztech.modern_industrialization.pipes.impl;
 
 import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
 import aztech.modern_industrialization.pipes.api.PipeNetworkType;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import java.util.HashMap;
 import java.util.Map;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.PersistentState;
+import net.minecraft.world.PersistentStateManager;
 
+/**
+ * The pipe networks of a world. The networks are saved here, while the nodes
+ * and their links are saved by region in {@link PipeNetworkRegion}s, so that
+ * only the regions that changed are saved again.
+ */
 public class PipeNetworks extends PersistentState {
     private static final String NAME = "modern_industrialization_pipe_networks";
     private final Map<PipeNetworkType, PipeNetworkManager> managers;
+    /**
+     * The regions that were saved, they are loaded when the world is first
+     * accessed.
+     */
+    private final long[] savedRegions;
+    private final LongSet loadedRegions = new LongOpenHashSet();
+    private PersistentStateManager stateManager = null;
 
-    public PipeNetworks(Map<PipeNetworkType, PipeNetworkManager> managers) {
+    public PipeNetworks(Map<PipeNetworkType, PipeNetworkManager> managers, long[] savedRegions) {
         this.managers = managers;
+        this.savedRegions = savedRegions;
+        for (PipeNetworkManager manager : managers.values()) {
+            manager.setRegionCreatedListener(this::onRegionCreated);
+        }
     }
 
     public PipeNetworkManager getManager(PipeNetworkType type) {
-        return managers.computeIfAbsent(type, PipeNetworkManager::new);
+        return managers.computeIfAbsent(type, t -> {
+            PipeNetworkManager manager = new PipeNetworkManager(t);
+            manager.setRegionCreatedListener(this::onRegionCreated);
+            return manager;
+        });
+    }
+
+    Map<PipeNetworkType, PipeNetworkManager> getManagers() {
+        return managers;
     }
 
     public void onServerTickStart() {
@@ -50,11 +78,63 @@ public class PipeNetworks extends PersistentState {
         }
     }
 
+    /**
+     * Load the nodes of every saved region, then make the networks match the
+     * links. The links of all the nodes are needed to know when a network must be
+     * split, so every region is loaded at once.
+     */
+    private void loadRegions(PersistentStateManager stateManager) {
+        this.stateManager = stateManager;
+        for (long region : savedRegions) {
+            stateManager.getOrCreate(nbt -> PipeNetworkRegion.readNbt(this, region, nbt), () -> new PipeNetworkRegion(this, region),
+                    getRegionName(region));
+            loadedRegions.add(region);
+        }
+        // Regions that were read from an older save, without region files
+        for (PipeNetworkManager manager : managers.values()) {
+            for (long region : manager.getRegions()) {
+                onRegionCreated(region);
+            }
+        }
+        // The regions and the networks may have been saved at different times
+        for (PipeNetworkManager manager : managers.values()) {
+            manager.rebuildNetworks();
+        }
+    }
+
+    private void onRegionCreated(long region) {
+        if (loadedRegions.add(region)) {
+            stateManager.set(getRegionName(region), new PipeNetworkRegion(this, region));
+        }
+    }
+
+    private static String getRegionName(long region) {
+        return NAME + "_" + ChunkPos.getPackedX(region) + "_" + ChunkPos.getPackedZ(region);
+    }
+
+    /**
+     * The managers track which networks changed, so that the state is only saved
+     * when some network was actually modified.
+     */
+    @Override
+    public boolean isDirty() {
+        if (super.isDirty()) {
+            return true;
+        }
+        for (PipeNetworkManager manager : managers.values()) {
+            if (manager.isDirty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public NbtCompound writeNbt(NbtCompound nbt) {
         for (Map.Entry<PipeNetworkType, PipeNetworkManager> entry : managers.entrySet()) {
             nbt.put(entry.getKey().getIdentifier().toString(), entry.getValue().toTag(new NbtCompound()));
         }
+        nbt.putLongArray("regions", loadedRegions.toLongArray());
         return nbt;
     }
 
@@ -68,12 +148,15 @@ public class PipeNetworks extends PersistentState {
             }
             managers.put(entry.getValue(), manager);
         }
-        return new PipeNetworks(managers);
+        return new PipeNetworks(managers, nbt.getLongArray("regions"));
     }
 
     public static PipeNetworks get(ServerWorld world) {
-        PipeNetworks networks = world.getPersistentStateManager().getOrCreate(PipeNetworks::readNbt, () -> new PipeNetworks(new HashMap<>()), NAME);
-        networks.markDirty();
+        PipeNetworks networks = world.getPersistentStateManager().getOrCreate(PipeNetworks::readNbt,
+                () -> new PipeNetworks(new HashMap<>(), new long[0]), NAME);
+        if (networks.stateManager == null) {
+            networks.loadRegions(world.getPersistentStateManager());
+        }
         return networks;
     }
 }
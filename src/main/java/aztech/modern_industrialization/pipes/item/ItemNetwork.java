@@ -25,9 +25,79 @@ package aztech.modern_industrialization.pipes.item;
 
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
+import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
 public class ItemNetwork extends PipeNetwork {
+    // The routing table: every insert connection of the loaded nodes, sorted by
+    // decreasing priority. It is shared by every extracting connection, and only
+    // rebuilt when a node, a connection or a priority changes.
+    private final List<ItemNetworkNode.InsertTarget> insertTargets = new ArrayList<>();
+    private boolean insertTargetsValid = false;
+    // Targets with the same priority are shuffled at most once per tick
+    private boolean shuffledThisTick = false;
+
     public ItemNetwork(int id, PipeNetworkData data) {
         super(id, data == null ? new ItemNetworkData() : data);
     }
+
+    @Override
+    public void tick(World world) {
+        // Only tick once
+        if (ticked)
+            return;
+        ticked = true;
+
+        shuffledThisTick = false;
+    }
+
+    /**
+     * Rebuild the routing table before it is used again.
+     */
+    void invalidateInsertTargets() {
+        insertTargetsValid = false;
+    }
+
+    @Override
+    public void onNodesChanged() {
+        invalidateInsertTargets();
+    }
+
+    /**
+     * Get the insert targets of this network, sorted by decreasing priority, with
+     * the targets of the same priority in a random order.
+     */
+    List<ItemNetworkNode.InsertTarget> getInsertTargets(World world) {
+        if (!insertTargetsValid) {
+            insertTargets.clear();
+            for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+                if (entry.getValue() != null) {
+                    ((ItemNetworkNode) entry.getValue()).appendInsertTargets(world, entry.getKey(), insertTargets);
+                }
+            }
+            insertTargets.sort(Comparator.comparingInt(target -> -target.priority()));
+            insertTargetsValid = true;
+            shuffledThisTick = false;
+        }
+
+        if (!shuffledThisTick) {
+            // We randomly shuffle for connections with the same priority
+            int bucketStart = 0;
+            for (int i = 1; i <= insertTargets.size(); ++i) {
+                if (i == insertTargets.size() || insertTargets.get(i).priority() != insertTargets.get(bucketStart).priority()) {
+                    Collections.shuffle(insertTargets.subList(bucketStart, i));
+                    bucketStart = i;
+                }
+            }
+            shuffledThisTick = true;
+        }
+
+        return insertTargets;
+    }
 }
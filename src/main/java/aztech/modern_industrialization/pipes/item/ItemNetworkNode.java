@@ -25,6 +25,7 @@ package aztech.modern_industrialization.pipes.item;
 
 import static aztech.modern_industrialization.pipes.api.PipeEndpointType.*;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.api.pipes.item.SpeedUpgrade;
 import aztech.modern_industrialization.pipes.api.PipeEndpointType;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
@@ -33,6 +34,7 @@ import aztech.modern_industrialization.util.StorageUtil2;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemKey;
 import dev.technici4n.fasttransferlib.experimental.api.item.ItemStorage;
 import java.util.*;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
 import net.fabricmc.fabric.api.screenhandler.v1.ExtendedScreenHandlerFactory;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
@@ -44,12 +46,15 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 // LBA
 public class ItemNetworkNode extends PipeNetworkNode {
@@ -67,6 +72,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
             } else {
                 conn.dropUpgrades(world, pos);
                 connections.remove(i);
+                onConnectionsChanged();
             }
         }
     }
@@ -102,6 +108,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     conn.dropUpgrades(world, pos);
                     connections.remove(i);
                 }
+                onConnectionsChanged();
                 return;
             }
         }
@@ -118,6 +125,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
         // Otherwise try to connect
         if (canConnect(world, pos, direction)) {
             connections.add(new ItemConnection(direction, BLOCK_IN, 0));
+            onConnectionsChanged();
         }
     }
 
@@ -177,18 +185,23 @@ public class ItemNetworkNode extends PipeNetworkNode {
 
     @Override
     public void tick(World world, BlockPos pos) {
+        super.tick(world, pos);
+
         if (inactiveTicks == 0) {
-            List<InsertTarget> reachableInputs = null;
-            outer: for (ItemConnection connection : connections) { // TODO: optimize!
+            List<InsertTarget> insertTargets = null;
+            outer: for (ItemConnection connection : connections) {
                 if (connection.canExtract()) {
-                    Storage<ItemKey> source = ItemStorage.SIDED.find(world, pos.offset(connection.direction), connection.direction.getOpposite());
+                    Storage<ItemKey> source = connection.getNeighborStorage(world, pos);
+                    if (source == null)
+                        continue;
 
                     long movesLeft = connection.getMoves();
-                    if (reachableInputs == null)
-                        reachableInputs = getInputs(world, pos);
-                    for (InsertTarget target : reachableInputs) {
-                        if (target.connection.canInsert()) {
-                            long moved = StorageUtil.move(source, target.target,
+                    if (insertTargets == null)
+                        insertTargets = ((ItemNetwork) network).getInsertTargets(world);
+                    for (InsertTarget target : insertTargets) {
+                        Storage<ItemKey> targetStorage = target.getStorage();
+                        if (targetStorage != null) {
+                            long moved = StorageUtil.move(source, targetStorage,
                                     key -> connection.canStackMoveThrough(key) && target.connection.canStackMoveThrough(key), movesLeft, null);
                             movesLeft -= moved;
                             if (movesLeft == 0)
@@ -197,62 +210,75 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     }
                 }
             }
-            inactiveTicks = 60;
+            inactiveTicks = getExtractionInterval();
         }
         --inactiveTicks;
     }
 
     /**
-     * Run a bfs to find all connections in which to insert that are loaded and
-     * reachable from the given startPos.
+     * Compute the number of ticks between two extraction rounds from the config.
      */
-    public List<InsertTarget> getInputs(World world, BlockPos startPos) {
-        List<InsertTarget> result = new ArrayList<>();
-
-        Queue<BlockPos> queue = new ArrayDeque<>();
-        Set<BlockPos> visited = new HashSet<>();
-        queue.add(startPos);
-        while (!queue.isEmpty()) {
-            BlockPos u = queue.remove();
-            if (visited.add(u)) {
-                PipeNetworkNode maybeUnloaded = network.nodes.get(u);
-                if (maybeUnloaded != null) {
-                    ItemNetworkNode node = (ItemNetworkNode) maybeUnloaded;
-                    for (ItemConnection connection : node.connections) {
-                        if (connection.canInsert()) {
-                            Storage<ItemKey> target = ItemStorage.SIDED.find(world, u.offset(connection.direction),
-                                    connection.direction.getOpposite());
-                            target = StorageUtil2.wrapInventory(target);
-                            if (target != null && target.supportsInsertion()) {
-                                result.add(new InsertTarget(connection, target));
-                            }
-                        }
-                    }
-                }
-                for (Direction direction : network.manager.getNodeLinks(u)) {
-                    queue.add(u.offset(direction));
-                }
-            }
+    private static int getExtractionInterval() {
+        double roundsPerSecond = MIConfig.getConfig().itemPipeExtractionRoundsPerSecond;
+        if (!(roundsPerSecond > 0)) {
+            return 60;
         }
+        return Math.max(1, (int) Math.round(20 / roundsPerSecond));
+    }
 
-        // Now we sort by priority, high to low
-        result.sort(Comparator.comparing(target -> -target.connection.priority));
-        // We randomly shuffle for connections with the same priority
-        int prevPriority = Integer.MIN_VALUE;
-        int st = 0;
-        for (int i = 0; i < result.size() + 1; ++i) {
-            int p = i == result.size() ? Integer.MAX_VALUE : result.get(i).connection.priority;
-            if (p != prevPriority) {
-                Collections.shuffle(result.subList(st, i));
-                prevPriority = p;
-                st = i;
+    /**
+     * Add the connections in which to insert of this node to the routing table of
+     * the network.
+     */
+    void appendInsertTargets(World world, BlockPos pos, List<InsertTarget> insertTargets) {
+        for (ItemConnection connection : connections) {
+            if (connection.canInsert()) {
+                connection.createCache(world, pos);
+                insertTargets.add(new InsertTarget(connection));
             }
         }
+    }
 
-        return result;
+    /**
+     * Must be called when a connection is added, removed or modified.
+     */
+    private void onConnectionsChanged() {
+        markDirty();
+        if (network != null) {
+            ((ItemNetwork) network).invalidateInsertTargets();
+        }
     }
 
-    private record InsertTarget(ItemConnection connection, Storage<ItemKey> target) {
+    /**
+     * An entry of the routing table of a network.
+     */
+    static class InsertTarget {
+        private final ItemConnection connection;
+        // The last storage returned by the cache, to only wrap it when it changes
+        private Storage<ItemKey> foundStorage = null;
+        private Storage<ItemKey> storage = null;
+
+        private InsertTarget(ItemConnection connection) {
+            this.connection = connection;
+        }
+
+        int priority() {
+            return connection.priority;
+        }
+
+        /**
+         * Return the storage in which to insert, or null if there is none.
+         */
+        @Nullable
+        private Storage<ItemKey> getStorage() {
+            Storage<ItemKey> found = connection.cache.find(connection.direction.getOpposite());
+            if (found != foundStorage) {
+                foundStorage = found;
+                Storage<ItemKey> wrapped = StorageUtil2.wrapInventory(found);
+                storage = wrapped != null && wrapped.supportsInsertion() ? wrapped : null;
+            }
+            return storage;
+        }
     }
 
     @Override
@@ -272,6 +298,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
         private int priority;
         private final ItemStack[] stacks = new ItemStack[ItemPipeInterface.SLOTS];
         private ItemStack upgradeStack = ItemStack.EMPTY;
+        private BlockApiCache<Storage<ItemKey>, @NotNull Direction> cache = null;
 
         private ItemConnection(Direction direction, PipeEndpointType type, int priority) {
             this.direction = direction;
@@ -299,6 +326,18 @@ public class ItemNetworkNode extends PipeNetworkNode {
             return !whitelist;
         }
 
+        private void createCache(World world, BlockPos pos) {
+            if (cache == null) {
+                cache = BlockApiCache.create(ItemStorage.SIDED, (ServerWorld) world, pos.offset(direction));
+            }
+        }
+
+        @Nullable
+        private Storage<ItemKey> getNeighborStorage(World world, BlockPos pos) {
+            createCache(world, pos);
+            return cache.find(direction.getOpposite());
+        }
+
         private long getMoves() {
             SpeedUpgrade upgrade = SpeedUpgrade.LOOKUP.find(upgradeStack, null);
             return 16 + (upgrade == null ? 0 : upgrade.value() * upgradeStack.getCount());
@@ -359,6 +398,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     public void setConnectionType(int type) {
                         if (0 <= type && type < 3) {
                             ItemConnection.this.type = decodeConnectionType(type);
+                            onConnectionsChanged();
                             helper.callMarkDirty();
                             helper.callSync();
                         }
@@ -372,6 +412,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     @Override
                     public void setPriority(int priority) {
                         ItemConnection.this.priority = priority;
+                        onConnectionsChanged();
                         helper.callMarkDirty();
                     }
 
@@ -65,7 +65,7 @@ public final class AssemblerRecipes {
         }
         MIRecipeJson assemblerJson = json.exportToMachine("assembler", 8, 200, 1);
         String outputSuffix = recipeId.getPath().substring("recipes/".length());
-        pack.addData("modern_industrialization/recipes/generated/assembler/" + outputSuffix, GSON.toJson(assemblerJson).getBytes());
+        pack.addData("modern_industrialization/recipes/generated/assembler/" + outputSuffix, () -> GSON.toJson(assemblerJson).getBytes());
     }
 
     private AssemblerRecipes() {
@@ -61,7 +61,7 @@ public class HeatExchangerHelper {
 
                     HeatExchangerFluidRecipe recipe = new HeatExchangerFluidRecipe(inputs, outputs);
 
-                    pack.addData(path, GSON.toJson(recipe).getBytes());
+                    pack.addData(path, () -> GSON.toJson(recipe).getBytes());
                 }
 
             }
@@ -34,6 +34,13 @@ import aztech.modern_industrialization.textures.coloramp.BakableTargetColoramp;
 import aztech.modern_industrialization.textures.coloramp.Coloramp;
 import aztech.modern_industrialization.textures.coloramp.DefaultColoramp;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.resource.ResourceManager;
 
@@ -43,64 +50,84 @@ public final class MITextures {
         MIRuntimeResourcePack pack = new MIRuntimeResourcePack("MI Generated textures");
         TextureManager mtm = new TextureManager(manager, pack);
 
+        // The coloramps are baked first, and their inputs are part of the cache key of
+        // every job.
+        TextureCache.Recorder colorampInputs = new TextureCache.Recorder();
+        TextureManager colorampManager = mtm.forJob(colorampInputs);
         for (BakableTargetColoramp coloramp : BakableTargetColoramp.bakableTargetColoramps) {
-            coloramp.baked(mtm);
+            coloramp.baked(colorampManager);
         }
+        TextureCache cache = TextureCache.create(colorampInputs);
 
         try {
+            // First the textures that only depend on the resources
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
             for (Material material : MaterialRegistry.getMaterials().values()) {
                 for (MaterialPart part : material.getParts().values()) {
-                    part.registerTextures(mtm);
+                    submitJob(tasks, mtm, cache, "part/" + material.name + "/" + part.getItemId(), part::registerTextures);
                 }
             }
 
             for (CraftingFluid fluid : MIFluids.FLUIDS) {
-                registerFluidTextures(mtm, fluid);
+                submitJob(tasks, mtm, cache, "fluid/" + fluid.name, tm -> registerFluidTextures(tm, fluid));
             }
 
-            casingFromTexture(mtm, "lv", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/basic_machine_hull.png"));
-            casingFromTexture(mtm, "mv", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/advanced_machine_hull.png"));
-            casingFromTexture(mtm, "hv", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/turbo_machine_hull.png"));
-            casingFromTexture(mtm, "ev", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/highly_advanced_machine_hull.png"));
-            casingFromTexture(mtm, "supraconductor", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/ultimate_machine_hull.png"));
-            casingFromTexture(mtm, "nuclear", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/nuclear_machine_casing.png"));
-
-            casingFromTexture(mtm, "firebricks", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/fire_clay_bricks.png"));
-
-            casingFromTexture(mtm, "bricks", mtm.getAssetAsTexture("minecraft:textures/block/bricks.png"));
-
-            casingFromTextureBricked(mtm, "bricked_bronze",
-                    mtm.getAssetAsTexture("modern_industrialization:textures/blocks/bronze_machine_casing.png"),
-                    mtm.getAssetAsTexture("modern_industrialization:textures/blocks/fire_clay_bricks.png"));
-
-            casingFromTextureBricked(mtm, "bricked_steel", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/steel_machine_casing.png"),
-                    mtm.getAssetAsTexture("modern_industrialization:textures/blocks/fire_clay_bricks.png"));
-
-            mtm.addTexture("modern_industrialization:textures/items/mixed_ingot_blastproof.png",
-                    TextureHelper.tripleTexture(mtm.getAssetAsTexture("modern_industrialization:textures/items/stainless_steel_ingot.png"),
-                            mtm.getAssetAsTexture("modern_industrialization:textures/items/titanium_ingot.png"),
-                            mtm.getAssetAsTexture("modern_industrialization:textures/items/tungsten_ingot.png")));
-
-            mtm.addTexture("modern_industrialization:textures/items/mixed_plate_nuclear.png",
-                    TextureHelper.tripleTexture(mtm.getAssetAsTexture("modern_industrialization:textures/items/blastproof_alloy_plate.png"),
-                            mtm.getAssetAsTexture("modern_industrialization:textures/items/beryllium_plate.png"),
-                            mtm.getAssetAsTexture("modern_industrialization:textures/items/blastproof_alloy_plate.png"), 1, 2));
-
-            NativeImage copperDrill = mtm.getAssetAsTexture("modern_industrialization:textures/items/copper_mining_drill.png");
-            NativeImage steamHandler = mtm.getAssetAsTexture("modern_industrialization:textures/items/steam_mining_drill_handler.png");
-            TextureHelper.blend(steamHandler, copperDrill);
-            mtm.addTexture("modern_industrialization:textures/items/steam_mining_drill.png", steamHandler);
-            copperDrill.close();
-            steamHandler.close();
-
-            NativeImage aluminumDrill = mtm.getAssetAsTexture("modern_industrialization:textures/items/aluminum_mining_drill.png");
-            NativeImage dieselHandler = mtm.getAssetAsTexture("modern_industrialization:textures/items/diesel_mining_drill_handler.png");
-            TextureHelper.blend(dieselHandler, aluminumDrill);
-            mtm.addTexture("modern_industrialization:textures/items/diesel_mining_drill.png", dieselHandler);
-            aluminumDrill.close();
-            dieselHandler.close();
-
-            mtm.onEnd();
+            submitCasingJob(tasks, mtm, cache, "lv", "modern_industrialization:textures/blocks/basic_machine_hull.png");
+            submitCasingJob(tasks, mtm, cache, "mv", "modern_industrialization:textures/blocks/advanced_machine_hull.png");
+            submitCasingJob(tasks, mtm, cache, "hv", "modern_industrialization:textures/blocks/turbo_machine_hull.png");
+            submitCasingJob(tasks, mtm, cache, "ev", "modern_industrialization:textures/blocks/highly_advanced_machine_hull.png");
+            submitCasingJob(tasks, mtm, cache, "supraconductor", "modern_industrialization:textures/blocks/ultimate_machine_hull.png");
+            submitCasingJob(tasks, mtm, cache, "nuclear", "modern_industrialization:textures/blocks/nuclear_machine_casing.png");
+
+            submitCasingJob(tasks, mtm, cache, "firebricks", "modern_industrialization:textures/blocks/fire_clay_bricks.png");
+
+            submitCasingJob(tasks, mtm, cache, "bricks", "minecraft:textures/block/bricks.png");
+
+            submitJob(tasks, mtm, cache, "casing/bricked_bronze",
+                    tm -> casingFromTextureBricked(tm, "bricked_bronze",
+                            getAssetAsTexture(tm, "modern_industrialization:textures/blocks/bronze_machine_casing.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/blocks/fire_clay_bricks.png")));
+
+            submitJob(tasks, mtm, cache, "casing/bricked_steel",
+                    tm -> casingFromTextureBricked(tm, "bricked_steel",
+                            getAssetAsTexture(tm, "modern_industrialization:textures/blocks/steel_machine_casing.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/blocks/fire_clay_bricks.png")));
+
+            joinAll(tasks);
+
+            // Then the textures that depend on generated textures
+            submitJob(tasks, mtm, cache, "mixed_ingot_blastproof", tm -> addTexture(tm, "modern_industrialization:textures/items/mixed_ingot_blastproof.png",
+                    TextureHelper.tripleTexture(getAssetAsTexture(tm, "modern_industrialization:textures/items/stainless_steel_ingot.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/items/titanium_ingot.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/items/tungsten_ingot.png"))));
+
+            submitJob(tasks, mtm, cache, "mixed_plate_nuclear", tm -> addTexture(tm, "modern_industrialization:textures/items/mixed_plate_nuclear.png",
+                    TextureHelper.tripleTexture(getAssetAsTexture(tm, "modern_industrialization:textures/items/blastproof_alloy_plate.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/items/beryllium_plate.png"),
+                            getAssetAsTexture(tm, "modern_industrialization:textures/items/blastproof_alloy_plate.png"), 1, 2)));
+
+            submitJob(tasks, mtm, cache, "steam_mining_drill", tm -> {
+                NativeImage copperDrill = getAssetAsTexture(tm, "modern_industrialization:textures/items/copper_mining_drill.png");
+                NativeImage steamHandler = getAssetAsTexture(tm, "modern_industrialization:textures/items/steam_mining_drill_handler.png");
+                TextureHelper.blend(steamHandler, copperDrill);
+                addTexture(tm, "modern_industrialization:textures/items/steam_mining_drill.png", steamHandler);
+                copperDrill.close();
+            });
+
+            submitJob(tasks, mtm, cache, "diesel_mining_drill", tm -> {
+                NativeImage aluminumDrill = getAssetAsTexture(tm, "modern_industrialization:textures/items/aluminum_mining_drill.png");
+                NativeImage dieselHandler = getAssetAsTexture(tm, "modern_industrialization:textures/items/diesel_mining_drill_handler.png");
+                TextureHelper.blend(dieselHandler, aluminumDrill);
+                addTexture(tm, "modern_industrialization:textures/items/diesel_mining_drill.png", dieselHandler);
+                aluminumDrill.close();
+            });
+
+            for (Runnable runnable : mtm.takeEndRunnables()) {
+                tasks.add(ForkJoinPool.commonPool().submit(runnable));
+            }
+
+            joinAll(tasks);
+            cache.deleteUnusedEntries();
         } catch (Throwable exception) {
             ModernIndustrialization.LOGGER.error("Failed to generate texture pack.", exception);
         }
@@ -108,6 +135,70 @@ public final class MITextures {
         return pack;
     }
 
+    /**
+     * Run a texture generation job on the fork-join pool, or restore its textures
+     * from the cache if none of its inputs changed.
+     */
+    private static void submitJob(List<ForkJoinTask<?>> tasks, TextureManager mtm, TextureCache cache, String jobId, Consumer<TextureManager> job) {
+        tasks.add(ForkJoinPool.commonPool().submit(() -> {
+            try {
+                Map<String, byte[]> cachedTextures = cache.load(jobId, mtm);
+                if (cachedTextures != null) {
+                    for (Map.Entry<String, byte[]> entry : cachedTextures.entrySet()) {
+                        mtm.addCachedTexture(entry.getKey(), entry.getValue());
+                    }
+                    return;
+                }
+
+                TextureCache.Recorder recorder = new TextureCache.Recorder();
+                TextureManager jobManager = mtm.forJob(recorder);
+                job.accept(jobManager);
+                jobManager.stopRecording();
+                if (recorder.cacheable) {
+                    cache.save(jobId, recorder);
+                }
+            } catch (Throwable throwable) {
+                ModernIndustrialization.LOGGER.error("Failed to generate textures for job " + jobId, throwable);
+            }
+        }));
+    }
+
+    private static void submitCasingJob(List<ForkJoinTask<?>> tasks, TextureManager mtm, TextureCache cache, String casing, String texture) {
+        submitJob(tasks, mtm, cache, "casing/" + casing, tm -> casingFromTexture(tm, casing, getAssetAsTexture(tm, texture)));
+    }
+
+    private static void joinAll(List<ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        tasks.clear();
+    }
+
+    /**
+     * Same as {@link TextureManager#getAssetAsTexture}, but rethrows the exception
+     * unchecked for use in lambdas.
+     */
+    private static NativeImage getAssetAsTexture(TextureManager tm, String textureId) {
+        try {
+            return tm.getAssetAsTexture(textureId);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Add a texture and close the image.
+     */
+    private static void addTexture(TextureManager tm, String textureId, NativeImage image) {
+        try {
+            tm.addTexture(textureId, image);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            image.close();
+        }
+    }
+
     private static String getTemplate(String materialSet, String part, String suffix) {
         return String.format("modern_industrialization:textures/materialsets/%s/%s%s.png", materialSet, part, suffix);
     }
@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.textures;
+
+import aztech.modern_industrialization.ModernIndustrialization;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * On-disk cache of generated textures. Every generation job is stored along
+ * with the assets it queried and the hash of their content, and it is only
+ * reused if all of them are unchanged. Entries are keyed by the job id, the
+ * version of the mod and the content of the assets used to bake the
+ * coloramps, so that changed inputs never reuse an old texture.
+ *
+ * <p>
+ * The cache is disabled in a development environment, where the generation
+ * code can change without the mod version changing.
+ */
+class TextureCache {
+    private static final int FORMAT_VERSION = 1;
+
+    @Nullable
+    private final Path directory;
+    private final String globalKey;
+    private final Set<String> usedEntries = Collections.synchronizedSet(new HashSet<>());
+
+    private TextureCache(@Nullable Path directory, String globalKey) {
+        this.directory = directory;
+        this.globalKey = globalKey;
+    }
+
+    static TextureCache create(Recorder colorampInputs) {
+        if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
+            return new TextureCache(null, "");
+        }
+
+        String version = FabricLoader.getInstance().getModContainer(ModernIndustrialization.MOD_ID)
+                .map(container -> container.getMetadata().getVersion().getFriendlyString()).orElse("unknown");
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(version, StandardCharsets.UTF_8);
+        for (Input input : colorampInputs.inputs) {
+            hasher.putByte(input.kind()).putString(input.id(), StandardCharsets.UTF_8).putBytes(input.value());
+        }
+        Path directory = FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(ModernIndustrialization.MOD_ID).resolve("textures");
+        return new TextureCache(directory, hasher.hash().toString());
+    }
+
+    private Path getEntryPath(String jobId) {
+        String fileName = Hashing.sha256().hashString(globalKey + "\0" + jobId, StandardCharsets.UTF_8).toString();
+        usedEntries.add(fileName);
+        return directory.resolve(fileName);
+    }
+
+    /**
+     * Return the textures generated by a job if they are cached and all of the
+     * inputs of the job are unchanged, or null otherwise.
+     */
+    @Nullable
+    Map<String, byte[]> load(String jobId, TextureManager tm) {
+        if (directory == null) {
+            return null;
+        }
+        Path path = getEntryPath(jobId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(jobId)) {
+                return null;
+            }
+            int inputCount = in.readInt();
+            for (int i = 0; i < inputCount; ++i) {
+                byte kind = in.readByte();
+                String id = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                if (!Arrays.equals(value, tm.getInputValue(kind, id))) {
+                    return null;
+                }
+            }
+            int outputCount = in.readInt();
+            Map<String, byte[]> outputs = new LinkedHashMap<>();
+            for (int i = 0; i < outputCount; ++i) {
+                String textureId = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                outputs.put(textureId, bytes);
+            }
+            return outputs;
+        } catch (IOException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to read texture cache entry for job " + jobId, exception);
+            return null;
+        }
+    }
+
+    void save(String jobId, Recorder recorder) {
+        if (directory == null) {
+            return;
+        }
+        Path path = getEntryPath(jobId);
+
+        try {
+            Files.createDirectories(directory);
+            Path tempPath = Files.createTempFile(directory, "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(jobId);
+                out.writeInt(recorder.inputs.size());
+                for (Input input : recorder.inputs) {
+                    out.writeByte(input.kind());
+                    out.writeUTF(input.id());
+                    out.writeInt(input.value().length);
+                    out.write(input.value());
+                }
+                out.writeInt(recorder.outputs.size());
+                for (Map.Entry<String, byte[]> entry : recorder.outputs.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to write texture cache entry for job " + jobId, exception);
+        }
+    }
+
+    /**
+     * Delete the entries that were not used by this generation, for example
+     * because the mod was updated.
+     */
+    void deleteUnusedEntries() {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!usedEntries.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to clean up texture cache", exception);
+        }
+    }
+
+    /**
+     * An asset query made by a job. The value is the hash of the asset's content,
+     * or a single byte for existence checks.
+     */
+    record Input(byte kind, String id, byte[] value) {
+    }
+
+    /**
+     * Records the inputs and outputs of a single job.
+     */
+    static class Recorder {
+        final List<Input> inputs = new ArrayList<>();
+        final Map<String, byte[]> outputs = new LinkedHashMap<>();
+        /**
+         * Jobs that fail or that schedule work for the end can't be cached.
+         */
+        boolean cacheable = true;
+    }
+}
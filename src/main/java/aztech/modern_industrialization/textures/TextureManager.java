@@ -25,36 +25,96 @@ package aztech.modern_industrialization.textures;
 
 import aztech.modern_industrialization.MIRuntimeResourcePack;
 import aztech.modern_industrialization.util.ResourceUtil;
+import com.google.common.hash.Hashing;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Access to the assets used to generate textures, and to the generated pack.
+ * Generation jobs run in parallel, each with its own manager created by
+ * {@link #forJob} that records what the job reads and writes for the
+ * {@link TextureCache}.
+ */
 public class TextureManager {
+    // Kinds of inputs recorded for the texture cache
+    static final byte INPUT_HAS_ASSET = 0;
+    static final byte INPUT_ASSET_CONTENT = 1;
+    static final byte INPUT_HAS_RESOURCE = 2;
+
     private final ResourceManager rm;
     private final MIRuntimeResourcePack texturePack;
-    private final List<Runnable> endRunnables = new ArrayList<>();
+    private final List<Runnable> endRunnables;
+    @Nullable
+    private TextureCache.Recorder recorder;
 
     public TextureManager(ResourceManager rm, MIRuntimeResourcePack texturePack) {
+        this(rm, texturePack, Collections.synchronizedList(new ArrayList<>()), null);
+    }
+
+    private TextureManager(ResourceManager rm, MIRuntimeResourcePack texturePack, List<Runnable> endRunnables,
+            @Nullable TextureCache.Recorder recorder) {
         this.rm = rm;
         this.texturePack = texturePack;
+        this.endRunnables = endRunnables;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Create a manager for a single job, that records the inputs and outputs of
+     * the job until {@link #stopRecording} is called.
+     */
+    TextureManager forJob(TextureCache.Recorder recorder) {
+        return new TextureManager(rm, texturePack, endRunnables, recorder);
+    }
+
+    void stopRecording() {
+        recorder = null;
     }
 
     public boolean hasAsset(String asset) {
+        boolean result = hasAssetInternal(asset);
+        if (recorder != null) {
+            recorder.inputs.add(new TextureCache.Input(INPUT_HAS_ASSET, asset, booleanValue(result)));
+        }
+        return result;
+    }
+
+    private boolean hasAssetInternal(String asset) {
         return rm.containsResource(new Identifier(asset)) || texturePack.contains(ResourceType.CLIENT_RESOURCES, new Identifier(asset));
     }
 
     public NativeImage getAssetAsTexture(String textureId) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = getAssetBytes(textureId);
+        } catch (IOException exception) {
+            if (recorder != null) {
+                recorder.cacheable = false;
+            }
+            throw exception;
+        }
+        if (recorder != null) {
+            recorder.inputs.add(new TextureCache.Input(INPUT_ASSET_CONTENT, textureId, hash(bytes)));
+        }
+        return NativeImage.read(new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] getAssetBytes(String textureId) throws IOException {
         if (rm.containsResource(new Identifier(textureId))) {
             Resource texture = rm.getResource(new Identifier(textureId));
-            return NativeImage.read(new ByteArrayInputStream(ResourceUtil.getBytes(texture)));
+            return ResourceUtil.getBytes(texture);
         } else if (texturePack.contains(ResourceType.CLIENT_RESOURCES, new Identifier(textureId))) {
-            return NativeImage.read(texturePack.open(ResourceType.CLIENT_RESOURCES, new Identifier(textureId)));
+            return IOUtils.toByteArray(texturePack.open(ResourceType.CLIENT_RESOURCES, new Identifier(textureId)));
         } else {
             throw new IOException("Couldn't find texture " + textureId);
         }
@@ -65,19 +125,74 @@ public class TextureManager {
      */
     public void addTexture(String textureId, NativeImage image) throws IOException {
         Identifier id = new Identifier(textureId);
-        if (!rm.containsResource(id)) {
-            texturePack.addAsset(textureId.replace(':', '/'), image.getBytes());
+        boolean hasResource = rm.containsResource(id);
+        if (recorder != null) {
+            recorder.inputs.add(new TextureCache.Input(INPUT_HAS_RESOURCE, textureId, booleanValue(hasResource)));
+        }
+        if (!hasResource) {
+            byte[] bytes = image.getBytes();
+            texturePack.addAsset(textureId.replace(':', '/'), bytes);
+            if (recorder != null) {
+                recorder.outputs.put(textureId, bytes);
+            }
         }
     }
 
+    /**
+     * Add a texture that was restored from the cache.
+     */
+    void addCachedTexture(String textureId, byte[] bytes) {
+        texturePack.addAsset(textureId.replace(':', '/'), bytes);
+    }
+
+    /**
+     * Compute the current value of a recorded input, to check if a cache entry is
+     * still valid.
+     */
+    byte[] getInputValue(byte kind, String id) {
+        switch (kind) {
+        case INPUT_HAS_ASSET:
+            return booleanValue(hasAssetInternal(id));
+        case INPUT_ASSET_CONTENT:
+            try {
+                return hash(getAssetBytes(id));
+            } catch (IOException exception) {
+                return new byte[0];
+            }
+        case INPUT_HAS_RESOURCE:
+            return booleanValue(rm.containsResource(new Identifier(id)));
+        default:
+            throw new IllegalArgumentException("Unknown input kind " + kind);
+        }
+    }
+
+    private static byte[] booleanValue(boolean value) {
+        return new byte[] { (byte) (value ? 1 : 0) };
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        return Hashing.sha256().hashBytes(bytes).asBytes();
+    }
+
+    /**
+     * Run the runnable after all the other textures were generated. Jobs that use
+     * this are never cached.
+     */
     public void runAtEnd(Runnable runnable) {
+        if (recorder != null) {
+            recorder.cacheable = false;
+        }
         endRunnables.add(runnable);
     }
 
-    public void onEnd() {
-        for (Runnable runnable : endRunnables) {
-            runnable.run();
+    /**
+     * Remove the runnables that were registered with {@link #runAtEnd}.
+     */
+    List<Runnable> takeEndRunnables() {
+        synchronized (endRunnables) {
+            List<Runnable> runnables = new ArrayList<>(endRunnables);
+            endRunnables.clear();
+            return runnables;
         }
-        endRunnables.clear();
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.util;
+
+import aztech.modern_industrialization.mixin_client.ClientWorldAccessor;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Coalesces the chunk remeshes requested by block entity syncs. Requests are
+ * grouped per chunk section, and at most {@link #MAX_REMESHES_PER_FRAME}
+ * sections are remeshed per frame. Sections outside of the view frustum stay
+ * pending until they become visible, so machines that keep toggling out of view
+ * don't cause any rebuild at all.
+ */
+public class ChunkRemeshScheduler {
+    private static final int MAX_REMESHES_PER_FRAME = 8;
+
+    private static final LongLinkedOpenHashSet pendingSections = new LongLinkedOpenHashSet();
+    @Nullable
+    private static ClientWorld pendingWorld = null;
+
+    /**
+     * Request a remesh of the chunk section containing the position.
+     */
+    public static void scheduleRemesh(ClientWorld world, BlockPos pos) {
+        if (world != pendingWorld) {
+            pendingSections.clear();
+            pendingWorld = world;
+        }
+        pendingSections.add(ChunkSectionPos.toLong(pos));
+    }
+
+    /**
+     * Called after the frustum is set up, to remesh the pending visible sections.
+     */
+    public static void onAfterSetup(WorldRenderContext context) {
+        if (pendingSections.isEmpty()) {
+            return;
+        }
+        if (context.world() != pendingWorld) {
+            pendingSections.clear();
+            pendingWorld = null;
+            return;
+        }
+
+        @Nullable
+        Frustum frustum = context.frustum();
+        int remeshed = 0;
+        LongIterator iterator = pendingSections.iterator();
+        while (iterator.hasNext() && remeshed < MAX_REMESHES_PER_FRAME) {
+            long section = iterator.nextLong();
+            int minX = ChunkSectionPos.getBlockCoord(ChunkSectionPos.unpackX(section));
+            int minY = ChunkSectionPos.getBlockCoord(ChunkSectionPos.unpackY(section));
+            int minZ = ChunkSectionPos.getBlockCoord(ChunkSectionPos.unpackZ(section));
+            if (frustum == null || frustum.isVisible(new Box(minX, minY, minZ, minX + 16, minY + 16, minZ + 16))) {
+                // Use the center of the section, so that the neighboring sections are not
+                // remeshed.
+                BlockPos center = new BlockPos(minX + 8, minY + 8, minZ + 8);
+                ((ClientWorldAccessor) pendingWorld).getWorldRenderer().updateBlock(null, center, null, null, 0);
+                iterator.remove();
+                remeshed++;
+            }
+        }
+    }
+}
@@ -23,8 +23,8 @@
  */
 package aztech.modern_industrialization.util;
 
-import aztech.modern_industrialization.mixin_client.ClientWorldAccessor;
 import com.mojang.blaze3d.systems.RenderSystem;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import net.fabricmc.fabric.api.renderer.v1.Renderer;
@@ -55,6 +55,51 @@ public class RenderHelper {
         }
     }
 
+    /**
+     * Append the vertices of {@link #drawOverlay} to a list, for a block scaled by
+     * {@code scale} and then translated by {@code (x, y, z)}. Every vertex is
+     * stored as x, y, z, u, v, normal x, normal y, normal z. The vertices can then
+     * be drawn with {@link #drawVertices}.
+     */
+    public static void appendOverlayVertices(FloatArrayList vertices, float x, float y, float z, float scale) {
+        for (BakedQuad quad : OVERLAY_QUADS) {
+            int[] vertexData = quad.getVertexData();
+            Vec3i normal = quad.getFace().getVector();
+            int stride = vertexData.length / 4;
+            for (int i = 0; i < 4; ++i) {
+                int offset = i * stride;
+                vertices.add(x + scale * Float.intBitsToFloat(vertexData[offset]));
+                vertices.add(y + scale * Float.intBitsToFloat(vertexData[offset + 1]));
+                vertices.add(z + scale * Float.intBitsToFloat(vertexData[offset + 2]));
+                vertices.add(Float.intBitsToFloat(vertexData[offset + 4]));
+                vertices.add(Float.intBitsToFloat(vertexData[offset + 5]));
+                vertices.add(normal.getX());
+                vertices.add(normal.getY());
+                vertices.add(normal.getZ());
+            }
+        }
+    }
+
+    /**
+     * Draw vertices built by {@link #appendOverlayVertices} in the solid layer.
+     */
+    public static void drawVertices(MatrixStack ms, VertexConsumerProvider vcp, float[] vertices, float r, float g, float b, int light,
+            int overlay) {
+        VertexConsumer vc = vcp.getBuffer(RenderLayer.getSolid());
+        Matrix4f model = ms.peek().getModel();
+        Matrix3f normalMatrix = ms.peek().getNormal();
+        Vector4f pos = new Vector4f();
+        Vec3f normal = new Vec3f();
+        for (int i = 0; i < vertices.length; i += 8) {
+            pos.set(vertices[i], vertices[i + 1], vertices[i + 2], 1);
+            pos.transform(model);
+            normal.set(vertices[i + 5], vertices[i + 6], vertices[i + 7]);
+            normal.transform(normalMatrix);
+            vc.vertex(pos.getX(), pos.getY(), pos.getZ(), r, g, b, 1, vertices[i + 3], vertices[i + 4], overlay, light, normal.getX(),
+                    normal.getY(), normal.getZ());
+        }
+    }
+
     static {
         OVERLAY_QUADS = new BakedQuad[24];
         Renderer r = RendererAccess.INSTANCE.getRenderer();
@@ -184,10 +229,11 @@ public class RenderHelper {
     }
 
     /**
-     * Force chunk remesh.
+     * Force chunk remesh. The remesh is scheduled by the
+     * {@link ChunkRemeshScheduler}, and may happen in a later frame.
      */
     public static void forceChunkRemesh(ClientWorld world, BlockPos pos) {
-        ((ClientWorldAccessor) world).getWorldRenderer().updateBlock(null, pos, null, null, 0);
+        ChunkRemeshScheduler.scheduleRemesh(world, pos);
     }
 
     private static final float[] DEFAULT_BRIGHTNESSES = new float[] { 1, 1, 1, 1 };